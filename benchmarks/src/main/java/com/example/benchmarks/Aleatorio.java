@@ -0,0 +1,14 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generador de números aleatorios propio de cada hilo del benchmark.
+ */
+@State(Scope.Thread)
+public class Aleatorio {
+    public final SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+}
@@ -0,0 +1,79 @@
+package com.example.benchmarks;
+
+import com.example.rest.Amistad;
+import com.example.rest.AmistadRepository;
+import com.example.rest.Pagina;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de los métodos públicos de AmistadRepository.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AmistadRepositoryBenchmark {
+
+    private static final AmistadRepository repository = AmistadRepository.getInstance();
+
+    @Benchmark
+    public boolean sonAmigos(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.sonAmigos(estado.datos.usuarioAleatorio(aleatorio.random),
+                estado.datos.usuarioAleatorio(aleatorio.random));
+    }
+
+    @Benchmark
+    public List<Long> obtenerAmigosIds(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerAmigosIds(estado.datos.usuarioAleatorio(aleatorio.random));
+    }
+
+    @Benchmark
+    public Pagina<Long> obtenerAmigosIdsPagina(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerAmigosIds(estado.datos.usuarioAleatorio(aleatorio.random), null, 10);
+    }
+
+    @Benchmark
+    public List<Amistad> obtenerAmistades(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerAmistades(estado.datos.usuarioAleatorio(aleatorio.random));
+    }
+
+    @Benchmark
+    public int contarAmigos(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.contarAmigos(estado.datos.usuarioAleatorio(aleatorio.random));
+    }
+
+    @Benchmark
+    public Pagina<Amistad> obtenerPagina(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerPagina((long) aleatorio.random.nextInt(estado.escala), 50);
+    }
+
+    /**
+     * Alta y baja de una amistad entre dos usuarios al azar (si ya eran amigos, baja y alta).
+     */
+    @Benchmark
+    public boolean crearYEliminarAmistad(EstadoRepositorios estado, Aleatorio aleatorio) {
+        long usuario1 = estado.datos.usuarioAleatorio(aleatorio.random);
+        long usuario2 = estado.datos.usuarioAleatorio(aleatorio.random);
+        if (usuario1 == usuario2) {
+            return false;
+        }
+        try {
+            repository.crearAmistad(usuario1, usuario2);
+            return repository.eliminarAmistad(usuario1, usuario2);
+        } catch (IllegalArgumentException yaEranAmigos) {
+            repository.eliminarAmistad(usuario1, usuario2);
+            repository.crearAmistad(usuario1, usuario2);
+            return true;
+        }
+    }
+
+    @Benchmark
+    @Measurement(iterations = 3, time = 2)
+    public List<Amistad> obtenerTodas(EstadoRepositorios estado) {
+        return repository.obtenerTodas();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.benchmarks;
+
+import com.example.rest.CachePublicaciones;
+import com.example.rest.Pagina;
+import com.example.rest.Publicacion;
+import com.example.rest.PublicacionRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primera página del feed y del perfil: consulta al repositorio contra lectura desde CachePublicaciones.
+ * Con la escala por defecto todas las páginas entran en la caché, así que después del
+ * calentamiento las lecturas con caché son aciertos (salvo las invalidadas por otros benchmarks).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CachePublicacionesBenchmark {
+
+    private static final PublicacionRepository repository = PublicacionRepository.getInstance();
+    private static final CachePublicaciones cache = CachePublicaciones.getInstance();
+
+    @Benchmark
+    public Pagina<Publicacion> feedSinCache(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerPublicacionesAmigos(estado.datos.usuarioAleatorio(aleatorio.random), 20, null);
+    }
+
+    @Benchmark
+    public Pagina<Publicacion> feedConCache(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return cache.feed(estado.datos.usuarioAleatorio(aleatorio.random), 20);
+    }
+
+    @Benchmark
+    public Pagina<Publicacion> perfilSinCache(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerPorUsuarioId(estado.datos.usuarioAleatorio(aleatorio.random), 20, null);
+    }
+
+    @Benchmark
+    public Pagina<Publicacion> perfilConCache(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return cache.perfil(estado.datos.usuarioAleatorio(aleatorio.random), 20);
+    }
+}
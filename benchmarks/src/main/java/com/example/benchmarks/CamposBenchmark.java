@@ -0,0 +1,70 @@
+package com.example.benchmarks;
+
+import com.example.rest.Campos;
+import com.example.rest.MapeadorJson;
+import com.example.rest.Publicacion;
+import com.example.rest.Usuario;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización de una lista grande de usuarios o publicaciones a JSON con todos los campos o solo
+ * con los de ?fields= (ver ProyeccionCampos): usuarios con id,nombre,apellido y publicaciones con
+ * id,usuarioId,likes. Con campos parciales cada iteración incluye lo que se hace por petición:
+ * interpretar el parámetro y armar el ObjectWriter con la máscara.
+ *
+ * El tamaño del JSON de cada combinación se imprime al preparar el estado, antes de medir.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CamposBenchmark {
+
+    @Param({"usuarios", "publicaciones"})
+    public String entidad;
+
+    @Param({"todos", "parciales"})
+    public String campos;
+
+    @Param({"1000"})
+    public int elementos;
+
+    private List<Object> lista;
+    private String fields;
+    private Campos.Entidad tipo;
+    private ObjectWriter escritor;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        lista = new ArrayList<>(elementos);
+        for (long i = 1; i <= elementos; i++) {
+            lista.add("usuarios".equals(entidad)
+                    ? new Usuario(i, "Nombre" + i, "Apellido" + i, "usuario" + i + "@example.com", (int) (18 + i % 60),
+                            "+54 11 5555-" + (1000 + i % 9000), "Avenida Siempre Viva " + i + ", Springfield")
+                    : new Publicacion(100_000 + i, 1 + i % 500,
+                            "Publicación número " + i + ": hoy fuimos a la playa con la familia y cenamos pescado.",
+                            "2024-03-15 18:42:07", (int) (i * 7 % 300)));
+        }
+        fields = "parciales".equals(campos)
+                ? ("usuarios".equals(entidad) ? "id,nombre,apellido" : "id,usuarioId,likes")
+                : null;
+        tipo = "usuarios".equals(entidad) ? Campos.USUARIO : Campos.PUBLICACION;
+        escritor = MapeadorJson.MAPPER.writer();
+        System.out.printf("%n%s con campos %s: %d elementos, %d bytes%n", entidad,
+                fields != null ? fields : "todos", elementos, serializar().length);
+    }
+
+    @Benchmark
+    public byte[] serializar() throws IOException {
+        ObjectWriter writer = fields != null ? escritor.withAttribute(Campos.class, Campos.de(fields, tipo)) : escritor;
+        return writer.writeValueAsBytes(lista);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.benchmarks;
+
+import com.example.rest.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de los métodos públicos de ComentarioRepository.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComentarioRepositoryBenchmark {
+
+    private static final int COMENTARIOS_POR_PUBLICACION = 10;
+
+    private static final ComentarioRepository repository = ComentarioRepository.getInstance();
+    private static final PublicacionRepository publicacionRepository = PublicacionRepository.getInstance();
+
+    @Benchmark
+    public Comentario crear(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.crear(new Comentario(null, estado.datos.publicacionAleatoria(aleatorio.random),
+                estado.datos.usuarioAleatorio(aleatorio.random), "Nuevo comentario", null));
+    }
+
+    @Benchmark
+    public Optional<Comentario> buscarPorId(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.buscarPorId((long) aleatorio.random.nextInt(estado.escala) + 1);
+    }
+
+    @Benchmark
+    public List<Comentario> obtenerPorPublicacionId(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerPorPublicacionId(estado.datos.publicacionAleatoria(aleatorio.random));
+    }
+
+    @Benchmark
+    public Pagina<Comentario> obtenerPorUsuarioId(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerPorUsuarioId(estado.datos.usuarioAleatorio(aleatorio.random), null, 20);
+    }
+
+    @Benchmark
+    public Comentario actualizar(EstadoRepositorios estado, Aleatorio aleatorio) {
+        long id = (long) aleatorio.random.nextInt(estado.escala) + 1;
+        try {
+            return repository.actualizar(id, new Comentario(null, null, null, "Comentario editado", null));
+        } catch (IllegalArgumentException e) {
+            return null; // Eliminado por otro benchmark del mismo trial
+        }
+    }
+
+    @Benchmark
+    public boolean crearYEliminar(EstadoRepositorios estado, Aleatorio aleatorio) {
+        Comentario comentario = crear(estado, aleatorio);
+        return repository.eliminar(comentario.getId());
+    }
+
+    /**
+     * Crea una publicación con varios comentarios y la elimina en cascada, como PublicacionResource.eliminar.
+     */
+    @Benchmark
+    public boolean eliminarPorPublicacionId(EstadoRepositorios estado, Aleatorio aleatorio) {
+        long autor = estado.datos.usuarioAleatorio(aleatorio.random);
+        Publicacion publicacion = publicacionRepository.crear(new Publicacion(null, autor, "Temporal", null, 0));
+        for (int i = 0; i < COMENTARIOS_POR_PUBLICACION; i++) {
+            repository.crear(new Comentario(null, publicacion.getId(), autor, "Comentario " + i, null));
+        }
+        repository.eliminarPorPublicacionId(publicacion.getId());
+        return publicacionRepository.eliminar(publicacion.getId());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.benchmarks;
+
+import com.example.rest.*;
+
+import java.util.SplittableRandom;
+
+/**
+ * Carga datos sintéticos de una red social en los repositorios (que son singletons).
+ * Cada benchmark corre en su propia JVM (@Fork), así que la carga se hace una vez por trial.
+ *
+ * Con escala N se crean N usuarios, N publicaciones, N comentarios y N * amigosPorUsuario / 2
+ * amistades. Los IDs se asignan de forma secuencial, por lo que los IDs válidos de cada
+ * entidad van de 1 a N (más los 3 usuarios de ejemplo, que quedan al principio).
+ */
+public final class DatosSinteticos {
+    private static final String[] NOMBRES = {"Juan", "María", "Carlos", "Lucía", "José", "Sofía", "Martín", "Valentina"};
+    private static final String[] APELLIDOS = {"Pérez", "González", "Rodríguez", "Fernández", "López", "Martínez", "García"};
+
+    private final int escala;
+    private final long primerUsuarioId;
+    private final long primeraPublicacionId;
+
+    private DatosSinteticos(int escala, long primerUsuarioId, long primeraPublicacionId) {
+        this.escala = escala;
+        this.primerUsuarioId = primerUsuarioId;
+        this.primeraPublicacionId = primeraPublicacionId;
+    }
+
+    /**
+     * Puebla todos los repositorios.
+     * @param escala Cantidad de usuarios, publicaciones y comentarios
+     * @param amigosPorUsuario Grado medio del grafo de amistades
+     */
+    public static DatosSinteticos cargar(int escala, int amigosPorUsuario) {
+        UsuarioRepository usuarios = UsuarioRepository.getInstance();
+        PublicacionRepository publicaciones = PublicacionRepository.getInstance();
+        ComentarioRepository comentarios = ComentarioRepository.getInstance();
+        AmistadRepository amistades = AmistadRepository.getInstance();
+        SplittableRandom random = new SplittableRandom(42);
+
+        long primerUsuarioId = -1;
+        for (int i = 0; i < escala; i++) {
+            Usuario usuario = usuarios.crear(new Usuario(null,
+                    NOMBRES[i % NOMBRES.length], APELLIDOS[(i / NOMBRES.length) % APELLIDOS.length] + " " + i,
+                    "usuario" + i + "@example.com", 18 + (i % 60), "+598" + i, "Calle " + i));
+            if (i == 0) {
+                primerUsuarioId = usuario.getId();
+            }
+        }
+
+        long amistadesACrear = (long) escala * amigosPorUsuario / 2;
+        for (long creadas = 0; creadas < amistadesACrear; ) {
+            long usuario1 = primerUsuarioId + random.nextInt(escala);
+            long usuario2 = primerUsuarioId + random.nextInt(escala);
+            if (usuario1 != usuario2 && !amistades.sonAmigos(usuario1, usuario2)) {
+                amistades.crearAmistad(usuario1, usuario2);
+                creadas++;
+            }
+        }
+
+        long primeraPublicacionId = -1;
+        for (int i = 0; i < escala; i++) {
+            long autor = primerUsuarioId + random.nextInt(escala);
+            Publicacion publicacion = publicaciones.crear(new Publicacion(null, autor, "Publicación sintética " + i, null, 0));
+            if (i == 0) {
+                primeraPublicacionId = publicacion.getId();
+            }
+        }
+
+        for (int i = 0; i < escala; i++) {
+            long publicacionId = primeraPublicacionId + random.nextInt(escala);
+            long autor = primerUsuarioId + random.nextInt(escala);
+            comentarios.crear(new Comentario(null, publicacionId, autor, "Comentario sintético " + i, null));
+        }
+        return new DatosSinteticos(escala, primerUsuarioId, primeraPublicacionId);
+    }
+
+    public int getEscala() {
+        return escala;
+    }
+
+    public long usuarioAleatorio(SplittableRandom random) {
+        return primerUsuarioId + random.nextInt(escala);
+    }
+
+    public long publicacionAleatoria(SplittableRandom random) {
+        return primeraPublicacionId + random.nextInt(escala);
+    }
+
+    public String emailAleatorio(SplittableRandom random) {
+        return "USUARIO" + random.nextInt(escala) + "@Example.com";
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de benchmarks.jar. Acepta las mismas opciones que JMH y además:
+ *
+ * - Ejecuta la selección una vez por cada cantidad de hilos de -Dhilos (por defecto "1,2,4,8").
+ * - Guarda los resultados en JSON (target/jmh-resultados-t{hilos}.json) para comparar
+ *   ejecuciones y detectar regresiones, salvo que se indique -rf/-rff.
+ *
+ * Ejemplo: java -Dhilos=1,4,16 -jar target/benchmarks.jar RepositoryBenchmark -p escala=10000,1000000
+ */
+public class EjecutarBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions opciones = new CommandLineOptions(args);
+        if (opciones.shouldHelp() || opciones.shouldList() || opciones.shouldListWithParams()
+                || opciones.shouldListProfilers() || opciones.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        String[] hilos = opciones.getThreads().hasValue()
+                ? new String[]{String.valueOf(opciones.getThreads().get())}
+                : System.getProperty("hilos", "1,2,4,8").split(",");
+
+        for (String cantidad : hilos) {
+            int cantidadHilos = Integer.parseInt(cantidad.trim());
+            OptionsBuilder builder = new OptionsBuilder();
+            builder.parent(opciones).threads(cantidadHilos);
+            if (!opciones.getResultFormat().hasValue()) {
+                builder.resultFormat(ResultFormatType.JSON);
+            }
+            if (!opciones.getResult().hasValue()) {
+                builder.result("target/jmh-resultados-t" + cantidadHilos + ".json");
+            }
+            new Runner(builder.build()).run();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Estado compartido por los benchmarks de repositorios: datos sintéticos a la escala pedida.
+ * Para otras escalas: -p escala=1000000 (con heap suficiente, por ejemplo -jvmArgsAppend -Xmx8g).
+ */
+@State(Scope.Benchmark)
+public class EstadoRepositorios {
+
+    @Param({"10000"})
+    public int escala;
+
+    @Param({"20"})
+    public int amigosPorUsuario;
+
+    public DatosSinteticos datos;
+
+    @Setup(Level.Trial)
+    public void cargar() {
+        datos = DatosSinteticos.cargar(escala, amigosPorUsuario);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.benchmarks;
+
+import com.example.rest.Comentario;
+import com.example.rest.FormatosBinarios;
+import com.example.rest.MapeadorJson;
+import com.example.rest.Publicacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Codificación y decodificación de una lista de publicaciones o comentarios en JSON, CBOR y Smile,
+ * con los mismos serializadores de entidades (SerializacionEntidades) en los tres formatos.
+ *
+ * El tamaño del payload de cada combinación se imprime al preparar el estado, antes de medir.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatosBenchmark {
+
+    @Param({"publicaciones", "comentarios"})
+    public String entidad;
+
+    @Param({"json", "cbor", "smile"})
+    public String formato;
+
+    @Param({"100"})
+    public int elementos;
+
+    private List<Object> lista;
+    private byte[] payload;
+    private ObjectWriter escritor;
+    private ObjectReader lector;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        lista = new ArrayList<>(elementos);
+        for (long i = 1; i <= elementos; i++) {
+            lista.add("publicaciones".equals(entidad)
+                    ? new Publicacion(100_000 + i, 1 + i % 500,
+                            "Publicación número " + i + ": hoy fuimos a la playa con la familia y cenamos pescado.",
+                            "2024-03-15 18:42:07", (int) (i * 7 % 300))
+                    : new Comentario(200_000 + i, 100_000 + i / 10, 1 + i % 500,
+                            "¡Qué lindo día! Comentario " + i, "2024-03-15 19:03:51"));
+        }
+        ObjectMapper mapper = switch (formato) {
+            case "json" -> MapeadorJson.MAPPER;
+            case "cbor" -> FormatosBinarios.CBOR;
+            case "smile" -> FormatosBinarios.SMILE;
+            default -> throw new IllegalArgumentException("Formato desconocido: " + formato);
+        };
+        Class<?> tipo = "publicaciones".equals(entidad) ? Publicacion[].class : Comentario[].class;
+        escritor = mapper.writer();
+        lector = mapper.readerFor(tipo);
+        payload = escritor.writeValueAsBytes(lista);
+        System.out.printf("%n%s en %s: %d elementos, %d bytes%n", entidad, formato, elementos, payload.length);
+    }
+
+    @Benchmark
+    public byte[] codificar() throws IOException {
+        return escritor.writeValueAsBytes(lista);
+    }
+
+    @Benchmark
+    public Object decodificar() throws IOException {
+        return lector.readValue(payload);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de carga HTTP para comparar el servicio en modo asíncrono (hilos virtuales) y
+ * en modo de un hilo por petición (-Dasync.modo=directo en el servidor).
+ *
+ * Abre N conexiones keep-alive simultáneas (un hilo virtual por conexión), cada una enviando
+ * GETs en bucle cerrado, y reporta throughput y percentiles de latencia exactos.
+ *
+ * Propiedades de sistema:
+ * - url: recurso a pedir (por defecto http://localhost:8081/api/usuarios/1)
+ * - conexiones: conexiones simultáneas (por defecto 1000)
+ * - duracion: segundos de medición (por defecto 30)
+ * - calentamiento: segundos iniciales que no se miden (por defecto 5)
+ *
+ * Ejemplo: java -Dconexiones=10000 -cp target/benchmarks.jar com.example.benchmarks.GeneradorCarga
+ */
+public class GeneradorCarga {
+    private static final int TIEMPO_MAXIMO_MS = 30_000;
+
+    public static void main(String[] args) throws Exception {
+        URI url = URI.create(System.getProperty("url", "http://localhost:8081/api/usuarios/1"));
+        int conexiones = Integer.getInteger("conexiones", 1000);
+        long duracionNs = Long.getLong("duracion", 30) * 1_000_000_000L;
+        long calentamientoNs = Long.getLong("calentamiento", 5) * 1_000_000_000L;
+
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + calentamientoNs;
+        long fin = inicioMedicion + duracionNs;
+        AtomicLong errores = new AtomicLong();
+        List<Latencias> porConexion = new ArrayList<>(conexiones);
+        CountDownLatch terminadas = new CountDownLatch(conexiones);
+
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < conexiones; i++) {
+                Latencias latencias = new Latencias();
+                porConexion.add(latencias);
+                hilos.execute(() -> {
+                    try {
+                        ejecutarConexion(url, inicioMedicion, fin, latencias, errores);
+                    } finally {
+                        terminadas.countDown();
+                    }
+                });
+            }
+            terminadas.await();
+        }
+
+        long[] todas = unir(porConexion);
+        Arrays.sort(todas);
+        double segundos = duracionNs / 1e9;
+        System.out.printf("url=%s conexiones=%d duracion=%.0fs%n", url, conexiones, segundos);
+        System.out.printf("peticiones=%d errores=%d throughput=%.0f req/s%n",
+                todas.length, errores.get(), todas.length / segundos);
+        if (todas.length > 0) {
+            System.out.printf("latencia (ms): p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                    percentil(todas, 50), percentil(todas, 90), percentil(todas, 99),
+                    percentil(todas, 99.9), todas[todas.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Bucle de una conexión: envía un GET, lee la respuesta completa y repite hasta 'fin'.
+     * Si la conexión falla, cuenta el error y abre otra.
+     */
+    private static void ejecutarConexion(URI url, long inicioMedicion, long fin, Latencias latencias, AtomicLong errores) {
+        byte[] peticion = ("GET " + url.getRawPath() + (url.getRawQuery() != null ? "?" + url.getRawQuery() : "")
+                + " HTTP/1.1\r\nHost: " + url.getHost() + "\r\nAccept: application/json\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        while (System.nanoTime() < fin) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(url.getHost(), url.getPort()), TIEMPO_MAXIMO_MS);
+                socket.setTcpNoDelay(true);
+                // Una respuesta que no llega se cuenta como error en vez de colgar la medición
+                socket.setSoTimeout(TIEMPO_MAXIMO_MS);
+                OutputStream salida = socket.getOutputStream();
+                InputStream entrada = new BufferedInputStream(socket.getInputStream());
+                long ahora;
+                while ((ahora = System.nanoTime()) < fin) {
+                    salida.write(peticion);
+                    salida.flush();
+                    int estado = leerRespuesta(entrada);
+                    long despues = System.nanoTime();
+                    if (estado >= 400) {
+                        errores.incrementAndGet();
+                    } else if (ahora >= inicioMedicion) {
+                        latencias.agregar(despues - ahora);
+                    }
+                }
+            } catch (IOException e) {
+                if (System.nanoTime() >= inicioMedicion) {
+                    errores.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee una respuesta HTTP/1.1 (Content-Length o chunked) y devuelve su código de estado.
+     */
+    private static int leerRespuesta(InputStream entrada) throws IOException {
+        String lineaEstado = leerLinea(entrada);
+        int estado = Integer.parseInt(lineaEstado.substring(9, 12));
+        long largo = 0;
+        boolean chunked = false;
+        String linea;
+        while (!(linea = leerLinea(entrada)).isEmpty()) {
+            String minusculas = linea.toLowerCase();
+            if (minusculas.startsWith("content-length:")) {
+                largo = Long.parseLong(linea.substring(15).trim());
+            } else if (minusculas.startsWith("transfer-encoding:") && minusculas.contains("chunked")) {
+                chunked = true;
+            }
+        }
+        if (!chunked) {
+            descartar(entrada, largo);
+            return estado;
+        }
+        while (true) {
+            long tamaño = Long.parseLong(leerLinea(entrada).split(";")[0].trim(), 16);
+            if (tamaño == 0) {
+                while (!leerLinea(entrada).isEmpty()) {
+                    // Trailers
+                }
+                return estado;
+            }
+            descartar(entrada, tamaño);
+            leerLinea(entrada);
+        }
+    }
+
+    private static String leerLinea(InputStream entrada) throws IOException {
+        StringBuilder linea = new StringBuilder();
+        int c;
+        while ((c = entrada.read()) != '\n') {
+            if (c == -1) {
+                throw new IOException("Conexión cerrada por el servidor");
+            }
+            if (c != '\r') {
+                linea.append((char) c);
+            }
+        }
+        return linea.toString();
+    }
+
+    private static void descartar(InputStream entrada, long cantidad) throws IOException {
+        while (cantidad > 0) {
+            long salteados = entrada.skip(cantidad);
+            if (salteados <= 0) {
+                if (entrada.read() == -1) {
+                    throw new IOException("Conexión cerrada por el servidor");
+                }
+                salteados = 1;
+            }
+            cantidad -= salteados;
+        }
+    }
+
+    private static long[] unir(List<Latencias> porConexion) {
+        int total = 0;
+        for (Latencias latencias : porConexion) {
+            total += latencias.cantidad;
+        }
+        long[] todas = new long[total];
+        int posicion = 0;
+        for (Latencias latencias : porConexion) {
+            System.arraycopy(latencias.valores, 0, todas, posicion, latencias.cantidad);
+            posicion += latencias.cantidad;
+        }
+        return todas;
+    }
+
+    private static double percentil(long[] ordenadas, double percentil) {
+        int indice = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(indice, ordenadas.length - 1))] / 1e6;
+    }
+
+    /**
+     * Latencias (ns) de una conexión; solo la escribe su propio hilo.
+     */
+    private static final class Latencias {
+        private long[] valores = new long[1024];
+        private int cantidad;
+
+        void agregar(long latencia) {
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, cantidad * 2);
+            }
+            valores[cantidad++] = latencia;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.benchmarks;
+
+import com.example.rest.HelloResource;
+import com.example.rest.MapeadorJson;
+import com.example.rest.MetricasPeticiones;
+import com.example.rest.MetricasServicio;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de la instrumentación de /api/metrics por petición.
+ *
+ * - relojes: solo las dos lecturas de System.nanoTime (referencia).
+ * - registrar: lo que agrega MetricasPeticiones en cada petición, sin Jersey: las dos lecturas
+ *   del reloj y registrar la muestra en el histograma de la ruta.
+ * - peticion: GET /hello completo contra Jersey en memoria (sin red), con y sin MetricasPeticiones;
+ *   la diferencia entre los dos valores de "instrumentado" es el costo real dentro de Jersey
+ *   (ruidosa: conviene -f 2 y un heap fijo, por ejemplo -jvmArgs "-Xms1g -Xmx1g").
+ *
+ * Con varios hilos (-t 4) se ve además la contención sobre los contadores del histograma.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstrumentacionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Ruta {
+        MetricasServicio.Ruta ruta;
+
+        @Setup(Level.Trial)
+        public void preparar() throws NoSuchMethodException {
+            ruta = MetricasServicio.getInstance().ruta(HelloResource.class.getMethod("hello"));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Jersey {
+        @Param({"false", "true"})
+        public boolean instrumentado;
+
+        ApplicationHandler handler;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            ResourceConfig configuracion = new ResourceConfig(HelloResource.class, MapeadorJson.class);
+            if (instrumentado) {
+                configuracion.register(MetricasPeticiones.class);
+            }
+            handler = new ApplicationHandler(configuracion);
+        }
+    }
+
+    @Benchmark
+    public long relojes() {
+        long inicio = System.nanoTime();
+        return System.nanoTime() - inicio;
+    }
+
+    @Benchmark
+    public long registrar(Ruta estado) {
+        long inicio = System.nanoTime();
+        long nanos = System.nanoTime() - inicio;
+        estado.ruta.registrar(200, nanos);
+        return nanos;
+    }
+
+    @Benchmark
+    public int peticion(Jersey estado) throws Exception {
+        ContainerRequest peticion = new ContainerRequest(URI.create("http://localhost/api/"),
+                URI.create("http://localhost/api/hello"), "GET", null, new MapPropertiesDelegate(),
+                estado.handler.getConfiguration());
+        ContainerResponse respuesta = estado.handler.apply(peticion, OutputStream.nullOutputStream()).get();
+        return respuesta.getStatus();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.benchmarks;
+
+import com.example.rest.Publicacion;
+import com.example.rest.PublicacionRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput de darLike/quitarLike sobre una única publicación muy popular.
+ * Se ejecuta con distintas cantidades de hilos para ver cómo escala, por ejemplo:
+ *
+ *   for t in 1 2 4 8 16; do java -jar target/benchmarks.jar LikesBenchmark -t $t; done
+ *
+ * El parámetro consolidacionMs activa el modo por lotes de los contadores (0 = exacto).
+ * "setLikesIngenuo" reproduce el antiguo setLikes(getLikes() + 1) como referencia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LikesBenchmark {
+
+    @Param({"0", "50"})
+    public String consolidacionMs;
+
+    private PublicacionRepository repository;
+    private Long publicacionId;
+    private Publicacion publicacionIngenua;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        // Cada combinación de parámetros corre en su propia JVM, así que la propiedad
+        // se lee al inicializar el repositorio
+        System.setProperty("likes.consolidacion.ms", consolidacionMs);
+        repository = PublicacionRepository.getInstance();
+        publicacionId = repository.crear(new Publicacion(null, 1L, "Publicación viral", null, 0)).getId();
+        publicacionIngenua = new Publicacion(2L, 1L, "Referencia", null, 0);
+    }
+
+    @Benchmark
+    public Publicacion darLike() {
+        return repository.darLike(publicacionId);
+    }
+
+    @Benchmark
+    public Integer darLikeYLeer() {
+        return repository.darLike(publicacionId).getLikes();
+    }
+
+    @Benchmark
+    @Group("mixto")
+    @GroupThreads(3)
+    public Publicacion mixtoDar() {
+        return repository.darLike(publicacionId);
+    }
+
+    @Benchmark
+    @Group("mixto")
+    @GroupThreads(1)
+    public Publicacion mixtoQuitar() {
+        return repository.quitarLike(publicacionId);
+    }
+
+    @Benchmark
+    public Publicacion setLikesIngenuo() {
+        // Pierde actualizaciones con varios hilos; solo sirve como referencia de costo
+        publicacionIngenua.setLikes(publicacionIngenua.getLikes() + 1);
+        return publicacionIngenua;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.benchmarks;
+
+import com.example.rest.Pagina;
+import com.example.rest.Publicacion;
+import com.example.rest.PublicacionRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de los métodos públicos de PublicacionRepository.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublicacionRepositoryBenchmark {
+
+    private static final PublicacionRepository repository = PublicacionRepository.getInstance();
+
+    @Benchmark
+    public Publicacion crear(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.crear(new Publicacion(null, estado.datos.usuarioAleatorio(aleatorio.random), "Nueva publicación", null, 0));
+    }
+
+    @Benchmark
+    public Optional<Publicacion> buscarPorId(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.buscarPorId(estado.datos.publicacionAleatoria(aleatorio.random));
+    }
+
+    @Benchmark
+    public Pagina<Publicacion> obtenerPagina(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerPagina(estado.datos.publicacionAleatoria(aleatorio.random), 50);
+    }
+
+    @Benchmark
+    public Pagina<Publicacion> obtenerPorUsuarioId(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerPorUsuarioId(estado.datos.usuarioAleatorio(aleatorio.random), 20, null);
+    }
+
+    @Benchmark
+    public Pagina<Publicacion> obtenerPublicacionesAmigos(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerPublicacionesAmigos(estado.datos.usuarioAleatorio(aleatorio.random), 20, null);
+    }
+
+    @Benchmark
+    public Publicacion actualizar(EstadoRepositorios estado, Aleatorio aleatorio) {
+        long id = estado.datos.publicacionAleatoria(aleatorio.random);
+        return repository.actualizar(id, new Publicacion(null, null, "Contenido editado", null, null));
+    }
+
+    @Benchmark
+    public Publicacion darLike(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.darLike(estado.datos.publicacionAleatoria(aleatorio.random));
+    }
+
+    @Benchmark
+    public Publicacion quitarLike(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.quitarLike(estado.datos.publicacionAleatoria(aleatorio.random));
+    }
+
+    @Benchmark
+    public boolean crearYEliminar(EstadoRepositorios estado, Aleatorio aleatorio) {
+        Publicacion publicacion = repository.crear(
+                new Publicacion(null, estado.datos.usuarioAleatorio(aleatorio.random), "Temporal", null, 0));
+        return repository.eliminar(publicacion.getId());
+    }
+
+    @Benchmark
+    @Measurement(iterations = 3, time = 2)
+    public List<Publicacion> obtenerTodas(EstadoRepositorios estado) {
+        return repository.obtenerTodas();
+    }
+}
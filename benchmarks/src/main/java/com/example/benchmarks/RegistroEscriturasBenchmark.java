@@ -0,0 +1,65 @@
+package com.example.benchmarks;
+
+import com.example.rest.Publicacion;
+import com.example.rest.RegistroEscrituras;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput de escrituras en el RegistroEscrituras con cada política de fsync: cada operación
+ * anota el alta de una publicación y la confirma (con "siempre", espera a que esté en disco).
+ * Con varios hilos se ve el commit en grupo: los registros que llegan durante un fsync comparten
+ * el siguiente, así que con "siempre" el throughput crece con los hilos.
+ *
+ *   java -Dhilos=1,16 -jar target/benchmarks.jar RegistroEscriturasBenchmark
+ *
+ * Cada iteración escribe en un archivo nuevo (en java.io.tmpdir, o en -Ddirectorio=...), que se
+ * borra al terminar: medir sobre el disco que se va a usar en producción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistroEscriturasBenchmark {
+
+    @Param({"siempre", "intervalo", "nunca"})
+    public String politica;
+
+    @Param({"100"})
+    public long intervaloMs;
+
+    private Path archivo;
+    private RegistroEscrituras wal;
+    private Publicacion publicacion;
+
+    @Setup(Level.Trial)
+    public void prepararPublicacion() {
+        publicacion = new Publicacion(1L, 1L, "Publicación número 1: hoy fuimos a la playa con la familia.", null, 0);
+        publicacion.setFechaCreacionMillis(System.currentTimeMillis());
+    }
+
+    @Setup(Level.Iteration)
+    public void abrir() throws IOException {
+        String directorio = System.getProperty("directorio", System.getProperty("java.io.tmpdir"));
+        archivo = Files.createTempFile(Path.of(directorio), "benchmark-", ".wal");
+        Files.delete(archivo); // El registro crea el archivo con su cabecera
+        wal = RegistroEscrituras.abrir(archivo, RegistroEscrituras.Politica.valueOf(politica.toUpperCase()), intervaloMs);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cerrar() throws IOException {
+        wal.cerrar();
+        Files.deleteIfExists(archivo);
+    }
+
+    @Benchmark
+    public void publicacionCreada() {
+        wal.confirmar(wal.publicacionCreada(publicacion));
+    }
+}
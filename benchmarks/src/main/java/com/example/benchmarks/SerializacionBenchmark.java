@@ -0,0 +1,75 @@
+package com.example.benchmarks;
+
+import com.example.rest.Amistad;
+import com.example.rest.Comentario;
+import com.example.rest.MapeadorJson;
+import com.example.rest.Publicacion;
+import com.example.rest.Usuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización y deserialización JSON de una entidad: ObjectMapper sin configurar (introspección
+ * por reflexión) contra el ObjectMapper del servicio (MapeadorJson, serializadores escritos a mano).
+ *
+ * Para medir también los bytes asignados por operación, agregar el perfilador de GC:
+ * java -jar target/benchmarks.jar SerializacionBenchmark -t 1 -prof gc   (columna gc.alloc.rate.norm)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializacionBenchmark {
+
+    @Param({"usuario", "publicacion", "comentario", "amistad"})
+    public String entidad;
+
+    @Param({"reflexion", "manual"})
+    public String mapeo;
+
+    private Object valor;
+    private byte[] json;
+    private ObjectWriter escritor;
+    private ObjectReader lector;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        valor = switch (entidad) {
+            case "usuario" -> new Usuario(1234L, "María", "González", "maria.gonzalez@example.com", 34,
+                    "+54 11 5555-1234", "Av. Siempre Viva 742");
+            case "publicacion" -> new Publicacion(98765L, 1234L,
+                    "Hoy fuimos a la playa con la familia, el agua estaba perfecta y cenamos pescado.",
+                    "2024-03-15 18:42:07", 57);
+            case "comentario" -> new Comentario(555L, 98765L, 4321L, "¡Qué lindo día! Me encanta ese lugar.",
+                    "2024-03-15 19:03:51");
+            case "amistad" -> new Amistad(777L, 1234L, 4321L, "2023-11-02 09:15:00");
+            default -> throw new IllegalArgumentException("Entidad desconocida: " + entidad);
+        };
+        if ("manual".equals(mapeo)) {
+            escritor = MapeadorJson.escritor(valor.getClass());
+            lector = MapeadorJson.lector(valor.getClass());
+        } else {
+            ObjectMapper reflexion = new ObjectMapper();
+            escritor = reflexion.writerFor(valor.getClass());
+            lector = reflexion.readerFor(valor.getClass());
+        }
+        json = escritor.writeValueAsBytes(valor);
+    }
+
+    @Benchmark
+    public byte[] serializar() throws IOException {
+        return escritor.writeValueAsBytes(valor);
+    }
+
+    @Benchmark
+    public Object deserializar() throws IOException {
+        return lector.readValue(json);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.benchmarks;
+
+import com.example.rest.Pagina;
+import com.example.rest.Usuario;
+import com.example.rest.UsuarioRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks de los métodos públicos de UsuarioRepository.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsuarioRepositoryBenchmark {
+
+    private static final AtomicLong SECUENCIA = new AtomicLong();
+    private static final int IDS_POR_CONSULTA = 20;
+    private static final UsuarioRepository repository = UsuarioRepository.getInstance();
+
+    @Benchmark
+    public Optional<Usuario> buscarPorId(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.buscarPorId(estado.datos.usuarioAleatorio(aleatorio.random));
+    }
+
+    @Benchmark
+    public Optional<Usuario> buscarPorEmail(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.buscarPorEmail(estado.datos.emailAleatorio(aleatorio.random));
+    }
+
+    @Benchmark
+    public List<Usuario> buscarPorIds(EstadoRepositorios estado, Aleatorio aleatorio) {
+        List<Long> ids = new ArrayList<>(IDS_POR_CONSULTA);
+        for (int i = 0; i < IDS_POR_CONSULTA; i++) {
+            ids.add(estado.datos.usuarioAleatorio(aleatorio.random));
+        }
+        return repository.buscarPorIds(ids);
+    }
+
+    @Benchmark
+    public List<Usuario> buscarPorNombre(EstadoRepositorios estado) {
+        return repository.buscarPorNombre("gonzález 12");
+    }
+
+    @Benchmark
+    public Pagina<Usuario> buscarPorNombreCorto(EstadoRepositorios estado) {
+        return repository.buscarPorNombre("ía", null, 20);
+    }
+
+    @Benchmark
+    public Pagina<Usuario> obtenerPagina(EstadoRepositorios estado, Aleatorio aleatorio) {
+        return repository.obtenerPagina(estado.datos.usuarioAleatorio(aleatorio.random), 50);
+    }
+
+    @Benchmark
+    public int contar(EstadoRepositorios estado) {
+        return repository.contar();
+    }
+
+    @Benchmark
+    public Usuario crear(EstadoRepositorios estado) {
+        long n = SECUENCIA.incrementAndGet();
+        return repository.crear(new Usuario(null, "Nuevo", "Usuario", "nuevo" + n + "@example.com", 30, null, null));
+    }
+
+    @Benchmark
+    public Usuario actualizar(EstadoRepositorios estado, Aleatorio aleatorio) {
+        long id = estado.datos.usuarioAleatorio(aleatorio.random);
+        Usuario actual = repository.buscarPorId(id).orElseThrow();
+        return repository.actualizar(id, new Usuario(null, actual.getNombre(), actual.getApellido(),
+                actual.getEmail(), actual.getEdad() + 1, actual.getTelefono(), actual.getDireccion()));
+    }
+
+    @Benchmark
+    public boolean crearYEliminar(EstadoRepositorios estado) {
+        long n = SECUENCIA.incrementAndGet();
+        Usuario usuario = repository.crear(new Usuario(null, "Temporal", "Usuario", "temporal" + n + "@example.com", 30, null, null));
+        return repository.eliminar(usuario.getId());
+    }
+
+    @Benchmark
+    @Measurement(iterations = 3, time = 2)
+    public List<Usuario> obtenerTodos(EstadoRepositorios estado) {
+        return repository.obtenerTodos();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.launcher;
+
+/**
+ * Configuración del servidor embebido, leída de propiedades de sistema (-Dservidor.xxx=valor).
+ * Los valores -1 o 0 dejan el valor por defecto del contenedor.
+ */
+public final class Configuracion {
+    /** "jetty" (por defecto) o "grizzly". */
+    public final String contenedor = System.getProperty("servidor.contenedor", "jetty");
+    public final String host = System.getProperty("servidor.host", "0.0.0.0");
+    public final int puerto = Integer.getInteger("servidor.puerto", 8081);
+    /** Hilos que aceptan conexiones (solo Jetty). */
+    public final int aceptores = Integer.getInteger("servidor.aceptores", -1);
+    /** Hilos selectores de E/S no bloqueante. */
+    public final int selectores = Integer.getInteger("servidor.selectores", -1);
+    /** Hilos de trabajo mínimos y máximos del contenedor. */
+    public final int hilosMinimos = Integer.getInteger("servidor.hilos.min", 8);
+    public final int hilosMaximos = Integer.getInteger("servidor.hilos.max", 200);
+    /** Peticiones que pueden esperar un hilo de trabajo; 0 = sin límite. */
+    public final int cola = Integer.getInteger("servidor.cola", 0);
+    /** Conexiones pendientes de aceptar en el socket (backlog); 0 = valor del sistema. */
+    public final int backlog = Integer.getInteger("servidor.backlog", 0);
+    /** Tiempo máximo de inactividad de una conexión. */
+    public final int inactividadMs = Integer.getInteger("servidor.inactividad.ms", 30_000);
+    /** HTTP/2 sin TLS (h2c), además de HTTP/1.1. */
+    public final boolean h2c = Boolean.getBoolean("servidor.h2c");
+
+    @Override
+    public String toString() {
+        return "contenedor=" + contenedor + " host=" + host + " puerto=" + puerto
+                + " aceptores=" + aceptores + " selectores=" + selectores
+                + " hilos=" + hilosMinimos + ".." + hilosMaximos + " cola=" + cola
+                + " backlog=" + backlog + " inactividadMs=" + inactividadMs + " h2c=" + h2c;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.launcher;
+
+import com.example.rest.JaxRsApplication;
+import org.glassfish.jersey.server.ResourceConfig;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Punto de entrada del servicio como JAR ejecutable: publica JaxRsApplication en un contenedor
+ * embebido (Jetty o Grizzly, según servidor.contenedor) y reporta el tiempo de arranque y la
+ * memoria residente (RSS) al quedar listo.
+ *
+ * Ejemplo: java -Dservidor.contenedor=grizzly -Dservidor.hilos.max=64 -jar target/servicio.jar
+ */
+public class Lanzador {
+
+    public static void main(String[] args) throws Exception {
+        Configuracion configuracion = new Configuracion();
+        ResourceConfig aplicacion = ResourceConfig.forApplicationClass(JaxRsApplication.class);
+
+        ServidorEmbebido servidor;
+        switch (configuracion.contenedor) {
+            case "jetty":
+                servidor = new ServidorJetty(configuracion, aplicacion);
+                break;
+            case "grizzly":
+                servidor = new ServidorGrizzly(configuracion, aplicacion);
+                break;
+            default:
+                throw new IllegalArgumentException("Contenedor desconocido: " + configuracion.contenedor
+                        + " (valores posibles: jetty, grizzly)");
+        }
+
+        servidor.iniciar();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                servidor.detener();
+            } catch (Exception e) {
+                System.err.println("Error al detener el servidor: " + e.getMessage());
+            }
+        }, "detener-servidor"));
+
+        System.out.println("Servidor listo en http://" + configuracion.host + ":" + configuracion.puerto + "/api");
+        System.out.println("Configuración: " + configuracion);
+        System.out.println("Arranque: " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms desde el inicio de la JVM"
+                + ", RSS: " + memoriaResidente());
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Memoria residente del proceso según /proc (Linux); en otros sistemas, el heap en uso.
+     */
+    private static String memoriaResidente() {
+        try {
+            for (String linea : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (linea.startsWith("VmRSS:")) {
+                    long kb = Long.parseLong(linea.substring(6).trim().split("\\s+")[0]);
+                    return (kb / 1024) + " MB";
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Sin /proc: se informa el heap
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return "no disponible (heap en uso: " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " MB)";
+    }
+}
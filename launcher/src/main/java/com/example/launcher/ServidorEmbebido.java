@@ -0,0 +1,11 @@
+package com.example.launcher;
+
+/**
+ * Contenedor HTTP embebido que publica la aplicación JAX-RS bajo /api.
+ */
+public interface ServidorEmbebido {
+
+    void iniciar() throws Exception;
+
+    void detener() throws Exception;
+}
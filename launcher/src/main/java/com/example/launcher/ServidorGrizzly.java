@@ -0,0 +1,57 @@
+package com.example.launcher;
+
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http2.Http2AddOn;
+import org.glassfish.grizzly.http2.Http2Configuration;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+
+import java.net.URI;
+
+/**
+ * Grizzly con selectores, pool de trabajo, cola, backlog, tiempo de inactividad y h2c configurables.
+ * Grizzly acepta conexiones en los propios selectores, así que servidor.aceptores no aplica.
+ */
+public class ServidorGrizzly implements ServidorEmbebido {
+    private final HttpServer server;
+
+    public ServidorGrizzly(Configuracion configuracion, ResourceConfig aplicacion) {
+        // La fábrica agrega el @ApplicationPath ("/api") de JaxRsApplication a la URI base
+        URI base = URI.create("http://" + configuracion.host + ":" + configuracion.puerto + "/");
+        server = GrizzlyHttpServerFactory.createHttpServer(base, aplicacion, false);
+
+        NetworkListener listener = server.getListener("grizzly");
+        TCPNIOTransport transporte = listener.getTransport();
+        if (configuracion.selectores > 0) {
+            transporte.setSelectorRunnersCount(configuracion.selectores);
+        }
+        if (configuracion.backlog > 0) {
+            transporte.setServerConnectionBackLog(configuracion.backlog);
+        }
+        transporte.setWorkerThreadPoolConfig(ThreadPoolConfig.defaultConfig()
+                .setPoolName("grizzly")
+                .setCorePoolSize(configuracion.hilosMinimos)
+                .setMaxPoolSize(configuracion.hilosMaximos)
+                .setQueueLimit(configuracion.cola > 0 ? configuracion.cola : -1));
+        listener.getKeepAlive().setIdleTimeoutInSeconds(Math.max(1, configuracion.inactividadMs / 1000));
+        if (configuracion.h2c) {
+            listener.registerAddOn(new Http2AddOn(Http2Configuration.builder().build()));
+        }
+        if (configuracion.aceptores > 0) {
+            System.out.println("Aviso: servidor.aceptores no aplica a Grizzly y se ignora");
+        }
+    }
+
+    @Override
+    public void iniciar() throws Exception {
+        server.start();
+    }
+
+    @Override
+    public void detener() {
+        server.shutdownNow();
+    }
+}
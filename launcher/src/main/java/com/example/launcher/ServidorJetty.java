@@ -0,0 +1,64 @@
+package com.example.launcher;
+
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.servlet.ServletContainer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Jetty con un conector configurable: aceptores, selectores, pool de hilos con cola
+ * opcionalmente acotada, backlog, tiempo de inactividad y h2c.
+ */
+public class ServidorJetty implements ServidorEmbebido {
+    private final Server server;
+
+    public ServidorJetty(Configuracion configuracion, ResourceConfig aplicacion) {
+        QueuedThreadPool hilos = new QueuedThreadPool(configuracion.hilosMaximos, configuracion.hilosMinimos,
+                60_000, configuracion.cola > 0 ? new ArrayBlockingQueue<>(configuracion.cola) : null);
+        hilos.setName("jetty");
+        server = new Server(hilos);
+
+        HttpConfiguration http = new HttpConfiguration();
+        http.setSendServerVersion(false);
+        ConnectionFactory[] fabricas = configuracion.h2c
+                ? new ConnectionFactory[]{new HttpConnectionFactory(http), new HTTP2CServerConnectionFactory(http)}
+                : new ConnectionFactory[]{new HttpConnectionFactory(http)};
+        ServerConnector conector = new ServerConnector(server, configuracion.aceptores, configuracion.selectores, fabricas);
+        conector.setHost(configuracion.host);
+        conector.setPort(configuracion.puerto);
+        conector.setIdleTimeout(configuracion.inactividadMs);
+        if (configuracion.backlog > 0) {
+            conector.setAcceptQueueSize(configuracion.backlog);
+        }
+        server.addConnector(conector);
+
+        // Mismo mapeo que web.xml: el servlet de Jersey en /api/*, con soporte asíncrono
+        ServletHolder jersey = new ServletHolder("JerseyServlet", new ServletContainer(aplicacion));
+        jersey.setAsyncSupported(true);
+        jersey.setInitOrder(1);
+        ServletContextHandler contexto = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
+        contexto.setContextPath("/");
+        contexto.addServlet(jersey, "/api/*");
+        server.setHandler(contexto);
+        server.setStopAtShutdown(false);
+    }
+
+    @Override
+    public void iniciar() throws Exception {
+        server.start();
+    }
+
+    @Override
+    public void detener() throws Exception {
+        server.stop();
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.estructuras;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas para búsqueda de subcadenas.
+ * Asocia cada trigrama del texto normalizado a la lista ordenada de IDs que lo contienen.
+ * Una consulta intersecta las listas de sus trigramas y verifica solo esos candidatos.
+ *
+ * La normalización elimina acentos y pliega mayúsculas/minúsculas, de modo que
+ * "perez" encuentra "Pérez" y "GONZÁLEZ" encuentra "González".
+ * Es seguro para uso concurrente y se mantiene de forma incremental.
+ */
+public class IndiceTrigramas {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    // trigrama codificado -> IDs ordenados que lo contienen
+    private final ConcurrentHashMap<Long, ListaPosteo> posteos = new ConcurrentHashMap<>();
+    // ID -> texto normalizado, ordenado por ID para recorrer consultas cortas
+    private final ConcurrentSkipListMap<Long, String> textos = new ConcurrentSkipListMap<>();
+
+    /**
+     * Normaliza un texto: sin acentos, en minúsculas plegadas y con espacios simples.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        // toUpperCase antes de toLowerCase aplica el plegado completo (por ejemplo "ß" -> "ss")
+        String plegado = sinAcentos.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        return ESPACIOS.matcher(plegado.trim()).replaceAll(" ");
+    }
+
+    /**
+     * Indexa (o reindexa) el texto asociado a un ID.
+     */
+    public void indexar(long id, String texto) {
+        String normalizado = normalizar(texto);
+        String anterior = textos.put(id, normalizado);
+
+        Set<Long> nuevos = trigramas(normalizado);
+        if (anterior != null) {
+            for (Long trigrama : trigramas(anterior)) {
+                if (!nuevos.contains(trigrama)) {
+                    quitarPosteo(trigrama, id);
+                }
+            }
+        }
+        for (Long trigrama : nuevos) {
+            posteos.computeIfAbsent(trigrama, t -> new ListaPosteo()).agregar(id);
+        }
+    }
+
+    /**
+     * Quita un ID del índice.
+     */
+    public void eliminar(long id) {
+        String anterior = textos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (Long trigrama : trigramas(anterior)) {
+            quitarPosteo(trigrama, id);
+        }
+    }
+
+    /**
+     * Busca los IDs cuyo texto contiene la consulta, en orden ascendente.
+     * @param consulta Texto a buscar (se normaliza igual que los textos indexados)
+     * @param despuesDeId Si no es null, solo se devuelven IDs mayores (paginación)
+     * @param limite Cantidad máxima de resultados
+     * @return IDs que coinciden, como máximo 'limite'
+     */
+    public List<Long> buscar(String consulta, Long despuesDeId, int limite) {
+        List<Long> resultado = new ArrayList<>();
+        String normalizada = normalizar(consulta);
+        if (limite <= 0) {
+            return resultado;
+        }
+        long desde = despuesDeId != null ? despuesDeId : Long.MIN_VALUE;
+
+        Set<Long> clavesConsulta = trigramas(normalizada);
+        if (clavesConsulta.isEmpty()) {
+            // Consultas de menos de 3 caracteres: recorrido ordenado con corte temprano
+            for (Map.Entry<Long, String> entrada : textos.tailMap(desde, false).entrySet()) {
+                if (entrada.getValue().contains(normalizada)) {
+                    resultado.add(entrada.getKey());
+                    if (resultado.size() >= limite) {
+                        break;
+                    }
+                }
+            }
+            return resultado;
+        }
+
+        List<ListaPosteo> listas = new ArrayList<>(clavesConsulta.size());
+        for (Long trigrama : clavesConsulta) {
+            ListaPosteo lista = posteos.get(trigrama);
+            if (lista == null || lista.tamaño() == 0) {
+                return resultado;
+            }
+            listas.add(lista);
+        }
+        // La lista más corta guía la intersección
+        listas.sort(Comparator.comparingInt(ListaPosteo::tamaño));
+        ListaPosteo guia = listas.get(0);
+
+        long actual = desde;
+        while (resultado.size() < limite) {
+            long candidato = guia.siguiente(actual);
+            if (candidato == Long.MIN_VALUE) {
+                break;
+            }
+            actual = candidato;
+            boolean enTodas = true;
+            for (int i = 1; i < listas.size() && enTodas; i++) {
+                enTodas = listas.get(i).contiene(candidato);
+            }
+            if (!enTodas) {
+                continue;
+            }
+            // Verificación final: los trigramas no garantizan el orden ni la contigüidad
+            String texto = textos.get(candidato);
+            if (texto != null && texto.contains(normalizada)) {
+                resultado.add(candidato);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad de textos indexados.
+     */
+    public int tamaño() {
+        return textos.size();
+    }
+
+    private void quitarPosteo(Long trigrama, long id) {
+        ListaPosteo lista = posteos.get(trigrama);
+        if (lista != null) {
+            lista.quitar(id);
+        }
+    }
+
+    /**
+     * Obtiene los trigramas de un texto ya normalizado, codificados como long (3 x 16 bits).
+     */
+    private static Set<Long> trigramas(String texto) {
+        if (texto.length() < 3) {
+            return Collections.emptySet();
+        }
+        Set<Long> resultado = new HashSet<>(texto.length() * 2);
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            long codigo = ((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2);
+            resultado.add(codigo);
+        }
+        return resultado;
+    }
+
+    /**
+     * Lista de posteo compacta: arreglo de long ordenado y sin duplicados.
+     * Los IDs nuevos suelen ser mayores que los existentes, por lo que agregar es O(1) amortizado.
+     */
+    private static final class ListaPosteo {
+        private long[] ids = new long[4];
+        private int tamaño;
+
+        synchronized void agregar(long id) {
+            if (tamaño > 0 && ids[tamaño - 1] >= id) {
+                int posicion = Arrays.binarySearch(ids, 0, tamaño, id);
+                if (posicion >= 0) {
+                    return;
+                }
+                insertarEn(-posicion - 1, id);
+                return;
+            }
+            insertarEn(tamaño, id);
+        }
+
+        synchronized void quitar(long id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamaño, id);
+            if (posicion < 0) {
+                return;
+            }
+            System.arraycopy(ids, posicion + 1, ids, posicion, tamaño - posicion - 1);
+            tamaño--;
+        }
+
+        synchronized boolean contiene(long id) {
+            return Arrays.binarySearch(ids, 0, tamaño, id) >= 0;
+        }
+
+        /**
+         * Devuelve el menor ID estrictamente mayor que 'id', o Long.MIN_VALUE si no hay.
+         */
+        synchronized long siguiente(long id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamaño, id);
+            int indice = posicion >= 0 ? posicion + 1 : -posicion - 1;
+            return indice < tamaño ? ids[indice] : Long.MIN_VALUE;
+        }
+
+        synchronized int tamaño() {
+            return tamaño;
+        }
+
+        private void insertarEn(int posicion, long id) {
+            if (tamaño == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+            }
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamaño - posicion);
+            ids[posicion] = id;
+            tamaño++;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.rest;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Objects;
 
 /**
@@ -9,7 +11,7 @@ public class Amistad {
     private Long id;
     private Long usuarioId1;
     private Long usuarioId2;
-    private String fechaAmistad; // Fecha en formato String (simplificado)
+    private long fechaAmistad; // Milisegundos desde epoch; se formatea al serializar
 
     public Amistad() {
     }
@@ -18,7 +20,7 @@ public class Amistad {
         this.id = id;
         this.usuarioId1 = usuarioId1;
         this.usuarioId2 = usuarioId2;
-        this.fechaAmistad = fechaAmistad;
+        this.fechaAmistad = Fechas.parsear(fechaAmistad);
     }
 
     public Long getId() {
@@ -46,10 +48,20 @@ public class Amistad {
     }
 
     public String getFechaAmistad() {
-        return fechaAmistad;
+        return Fechas.formatear(fechaAmistad);
     }
 
     public void setFechaAmistad(String fechaAmistad) {
+        this.fechaAmistad = Fechas.parsear(fechaAmistad);
+    }
+
+    @JsonIgnore
+    public long getFechaAmistadMillis() {
+        return fechaAmistad;
+    }
+
+    @JsonIgnore
+    public void setFechaAmistadMillis(long fechaAmistad) {
         this.fechaAmistad = fechaAmistad;
     }
 
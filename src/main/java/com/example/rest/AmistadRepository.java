@@ -1,21 +1,31 @@
 package com.example.rest;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.LongSupplier;
 
 /**
  * Repositorio en memoria para gestionar relaciones de amistad.
+ * Además del mapa principal mantiene dos índices:
+ * - amistadesPorPar: par de usuarios (sin orden) -> amistad, para verificaciones O(1)
+ *   y para serializar altas y bajas del mismo par.
+ * - amistadesPorUsuario: usuario -> (amigo -> amistad), para listar en O(grado).
+ * idsOrdenados mantiene los IDs de amistad ordenados para la paginación por cursor.
+ * Las altas y bajas se anotan en el RegistroEscrituras dentro del compute sobre el par.
  */
 public class AmistadRepository {
     private static final AmistadRepository instance = new AmistadRepository();
+    private final MetricasServicio.Operaciones operaciones = MetricasServicio.getInstance().repositorio("amistades");
     private final Map<Long, Amistad> amistades = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ParUsuarios, Amistad> amistadesPorPar = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentSkipListMap<Long, Amistad>> amistadesPorUsuario = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Long> idsOrdenados = new ConcurrentSkipListSet<>();
     private final AtomicLong idGenerator = new AtomicLong(1);
     private final UsuarioRepository usuarioRepository = UsuarioRepository.getInstance();
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final RegistroEscrituras wal = RegistroEscrituras.getInstance();
 
     private AmistadRepository() {
     }
@@ -28,6 +38,62 @@ public class AmistadRepository {
      * Crea una nueva relación de amistad entre dos usuarios.
      */
     public Amistad crearAmistad(Long usuarioId1, Long usuarioId2) {
+        operaciones.contar("crearAmistad");
+        validarNueva(usuarioId1, usuarioId2);
+        long[] posicion = new long[1];
+        Amistad amistad = insertar(usuarioId1, usuarioId2, idGenerator::getAndIncrement, Fechas.ahora(), posicion);
+        wal.confirmar(posicion[0]);
+        return amistad;
+    }
+
+    /**
+     * Crea varias amistades en una sola operación; cada elemento es un par {usuarioId1, usuarioId2}.
+     * Cada par se valida por separado (incluidos los repetidos dentro del lote) y recibe su
+     * propio resultado; los válidos se insertan con IDs reservados en un solo bloque.
+     */
+    public List<ResultadoLote<Amistad>> crearLote(List<Long[]> pares) {
+        operaciones.contar("crearLote");
+        String[] errores = new String[pares.size()];
+        Set<ParUsuarios> paresDelLote = new HashSet<>();
+        int validos = 0;
+        for (int i = 0; i < pares.size(); i++) {
+            Long[] par = pares.get(i);
+            try {
+                validarNueva(par[0], par[1]);
+                ParUsuarios clave = new ParUsuarios(par[0], par[1]);
+                if (!paresDelLote.add(clave)) {
+                    throw new IllegalArgumentException("Amistad repetida en el lote");
+                }
+                if (amistadesPorPar.containsKey(clave)) {
+                    throw new IllegalArgumentException("Los usuarios ya son amigos");
+                }
+                validos++;
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
+            }
+        }
+
+        long[] siguienteId = {idGenerator.getAndAdd(validos)};
+        long[] posicion = new long[1];
+        List<ResultadoLote<Amistad>> resultados = new ArrayList<>(pares.size());
+        for (int i = 0; i < pares.size(); i++) {
+            if (errores[i] != null) {
+                resultados.add(ResultadoLote.error(i, errores[i]));
+                continue;
+            }
+            try {
+                resultados.add(ResultadoLote.creado(i, insertar(pares.get(i)[0], pares.get(i)[1], () -> siguienteId[0]++,
+                        Fechas.ahora(), posicion)));
+            } catch (IllegalArgumentException e) {
+                // Otra alta concurrente del mismo par después de la validación
+                resultados.add(ResultadoLote.error(i, e.getMessage()));
+            }
+        }
+        wal.confirmar(posicion[0]); // Confirmar el último registro confirma todo el lote
+        return resultados;
+    }
+
+    private void validarNueva(Long usuarioId1, Long usuarioId2) {
         if (usuarioId1 == null || usuarioId2 == null) {
             throw new IllegalArgumentException("Los IDs de usuario no pueden ser nulos");
         }
@@ -43,68 +109,183 @@ public class AmistadRepository {
         if (!usuarioRepository.buscarPorId(usuarioId2).isPresent()) {
             throw new IllegalArgumentException("Usuario con ID " + usuarioId2 + " no encontrado");
         }
+    }
 
-        // Verificar si ya son amigos (en cualquier dirección)
-        if (sonAmigos(usuarioId1, usuarioId2)) {
-            throw new IllegalArgumentException("Los usuarios ya son amigos");
-        }
+    /**
+     * Amistad recuperada del RegistroEscrituras: conserva su ID y su fecha, y deja el
+     * generador de IDs después de ella.
+     */
+    void restaurar(Amistad amistad) {
+        idGenerator.accumulateAndGet(amistad.getId() + 1, Math::max);
+        insertar(amistad.getUsuarioId1(), amistad.getUsuarioId2(), amistad::getId, amistad.getFechaAmistadMillis(), new long[1]);
+    }
 
-        Long nuevoId = idGenerator.getAndIncrement();
-        String fechaActual = LocalDateTime.now().format(formatter);
-        Amistad amistad = new Amistad(nuevoId, usuarioId1, usuarioId2, fechaActual);
-        amistades.put(nuevoId, amistad);
-        return amistad;
+    /**
+     * Inserta una amistad; el ID se pide a 'ids' solo si los usuarios todavía no son amigos.
+     * Deja en posicion[0] la posición de su registro para RegistroEscrituras.confirmar.
+     */
+    private Amistad insertar(Long usuarioId1, Long usuarioId2, LongSupplier ids, long fechaAmistad, long[] posicion) {
+        // El compute sobre el par es atómico: dos altas concurrentes del mismo par
+        // no pueden crear amistades duplicadas (en cualquier dirección)
+        Amistad creada = amistadesPorPar.compute(new ParUsuarios(usuarioId1, usuarioId2), (par, existente) -> {
+            if (existente != null) {
+                throw new IllegalArgumentException("Los usuarios ya son amigos");
+            }
+            Long nuevoId = ids.getAsLong();
+            Amistad amistad = new Amistad(nuevoId, usuarioId1, usuarioId2, null);
+            amistad.setFechaAmistadMillis(fechaAmistad);
+            posicion[0] = wal.amistadCreada(amistad);
+            amistades.put(nuevoId, amistad);
+            idsOrdenados.add(nuevoId);
+            indiceDe(usuarioId1).put(usuarioId2, amistad);
+            indiceDe(usuarioId2).put(usuarioId1, amistad);
+            return amistad;
+        });
+        FeedRepository.getInstance().amistadCreada(usuarioId1, usuarioId2);
+        CachePublicaciones.getInstance().amistadModificada(usuarioId1, usuarioId2);
+        return creada;
     }
 
     /**
      * Verifica si dos usuarios son amigos.
      */
     public boolean sonAmigos(Long usuarioId1, Long usuarioId2) {
-        return amistades.values().stream()
-                .anyMatch(a -> (a.getUsuarioId1().equals(usuarioId1) && a.getUsuarioId2().equals(usuarioId2)) ||
-                               (a.getUsuarioId1().equals(usuarioId2) && a.getUsuarioId2().equals(usuarioId1)));
+        operaciones.contar("sonAmigos");
+        if (usuarioId1 == null || usuarioId2 == null) {
+            return false;
+        }
+        return amistadesPorPar.containsKey(new ParUsuarios(usuarioId1, usuarioId2));
     }
 
     /**
      * Obtiene todos los amigos de un usuario.
      */
     public List<Long> obtenerAmigosIds(Long usuarioId) {
-        return amistades.values().stream()
-                .filter(a -> a.getUsuarioId1().equals(usuarioId) || a.getUsuarioId2().equals(usuarioId))
-                .map(a -> a.getUsuarioId1().equals(usuarioId) ? a.getUsuarioId2() : a.getUsuarioId1())
-                .collect(Collectors.toList());
+        operaciones.contar("obtenerAmigosIds");
+        Map<Long, Amistad> indice = amistadesPorUsuario.get(usuarioId);
+        return indice == null ? new ArrayList<>() : new ArrayList<>(indice.keySet());
     }
 
     /**
      * Obtiene todas las amistades de un usuario (objetos Amistad completos).
      */
     public List<Amistad> obtenerAmistades(Long usuarioId) {
-        return amistades.values().stream()
-                .filter(a -> a.getUsuarioId1().equals(usuarioId) || a.getUsuarioId2().equals(usuarioId))
-                .collect(Collectors.toList());
+        operaciones.contar("obtenerAmistades");
+        Map<Long, Amistad> indice = amistadesPorUsuario.get(usuarioId);
+        return indice == null ? new ArrayList<>() : new ArrayList<>(indice.values());
+    }
+
+    /**
+     * Obtiene una página de IDs de amigos de un usuario, ordenados por ID de amigo.
+     */
+    public Pagina<Long> obtenerAmigosIds(Long usuarioId, Long despuesDeId, int limite) {
+        operaciones.contar("obtenerAmigosIds");
+        return Pagina.desde(amigosDe(usuarioId), despuesDeId, limite, id -> id);
+    }
+
+    /**
+     * IDs de los amigos de un usuario (vista del índice, sin copiar).
+     */
+    NavigableSet<Long> amigosDe(Long usuarioId) {
+        ConcurrentSkipListMap<Long, Amistad> indice = amistadesPorUsuario.get(usuarioId);
+        return indice != null ? indice.keySet() : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * Obtiene la cantidad de amigos de un usuario.
+     */
+    public int contarAmigos(Long usuarioId) {
+        operaciones.contar("contarAmigos");
+        Map<Long, Amistad> indice = amistadesPorUsuario.get(usuarioId);
+        return indice == null ? 0 : indice.size();
     }
 
     /**
      * Elimina una relación de amistad entre dos usuarios.
      */
     public boolean eliminarAmistad(Long usuarioId1, Long usuarioId2) {
-        Optional<Amistad> amistad = amistades.values().stream()
-                .filter(a -> (a.getUsuarioId1().equals(usuarioId1) && a.getUsuarioId2().equals(usuarioId2)) ||
-                             (a.getUsuarioId1().equals(usuarioId2) && a.getUsuarioId2().equals(usuarioId1)))
-                .findFirst();
-
-        if (amistad.isPresent()) {
-            amistades.remove(amistad.get().getId());
-            return true;
+        operaciones.contar("eliminarAmistad");
+        if (usuarioId1 == null || usuarioId2 == null) {
+            return false;
         }
-        return false;
+        boolean[] eliminada = new boolean[1];
+        long[] posicion = new long[1];
+        amistadesPorPar.computeIfPresent(new ParUsuarios(usuarioId1, usuarioId2), (par, amistad) -> {
+            posicion[0] = wal.amistadEliminada(usuarioId1, usuarioId2);
+            amistades.remove(amistad.getId());
+            idsOrdenados.remove(amistad.getId());
+            quitarDelIndice(usuarioId1, usuarioId2);
+            quitarDelIndice(usuarioId2, usuarioId1);
+            eliminada[0] = true;
+            return null;
+        });
+        if (eliminada[0]) {
+            FeedRepository.getInstance().amistadEliminada(usuarioId1, usuarioId2);
+            CachePublicaciones.getInstance().amistadModificada(usuarioId1, usuarioId2);
+            wal.confirmar(posicion[0]);
+        }
+        return eliminada[0];
     }
 
     /**
      * Obtiene todas las amistades.
      */
     public List<Amistad> obtenerTodas() {
+        operaciones.contar("obtenerTodas");
         return new ArrayList<>(amistades.values());
     }
+
+    /**
+     * Obtiene una página de amistades ordenadas por ID.
+     */
+    public Pagina<Amistad> obtenerPagina(Long despuesDeId, int limite) {
+        operaciones.contar("obtenerPagina");
+        return Pagina.desde(idsOrdenados, despuesDeId, limite, amistades::get);
+    }
+
+    /**
+     * Recorre todas las amistades en orden de ID sin copiarlas (ver Pagina.recorrer).
+     */
+    public Iterator<Amistad> recorrerTodas() {
+        operaciones.contar("recorrerTodas");
+        return Pagina.recorrer(idsOrdenados, amistades::get);
+    }
+
+    private ConcurrentSkipListMap<Long, Amistad> indiceDe(Long usuarioId) {
+        return amistadesPorUsuario.computeIfAbsent(usuarioId, id -> new ConcurrentSkipListMap<>());
+    }
+
+    private void quitarDelIndice(Long usuarioId, Long amigoId) {
+        Map<Long, Amistad> indice = amistadesPorUsuario.get(usuarioId);
+        if (indice != null) {
+            indice.remove(amigoId);
+        }
+    }
+
+    /**
+     * Clave de un par de usuarios sin orden: (a, b) y (b, a) son la misma clave.
+     */
+    private static final class ParUsuarios {
+        private final long menor;
+        private final long mayor;
+
+        ParUsuarios(Long usuarioId1, Long usuarioId2) {
+            this.menor = Math.min(usuarioId1, usuarioId2);
+            this.mayor = Math.max(usuarioId1, usuarioId2);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ParUsuarios)) return false;
+            ParUsuarios par = (ParUsuarios) o;
+            return menor == par.menor && mayor == par.mayor;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(menor) * 31 + Long.hashCode(mayor);
+        }
+    }
 }
 
@@ -1,17 +1,20 @@
 package com.example.rest;
 
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Recurso REST para gestionar relaciones de amistad entre usuarios.
  */
 @Path("/amistades")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+@LimiteEscrituras
 public class AmistadResource {
 
     private final AmistadRepository amistadRepository = AmistadRepository.getInstance();
@@ -24,56 +27,113 @@ public class AmistadResource {
      * Body: { "usuarioId1": 1, "usuarioId2": 2 }
      */
     @POST
-    public Response crearAmistad(AmistadRequest request) {
-        try {
-            if (request == null || request.getUsuarioId1() == null || request.getUsuarioId2() == null) {
+    public void crearAmistad(AmistadRequest request, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (request == null || request.getUsuarioId1() == null || request.getUsuarioId2() == null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("Se requieren usuarioId1 y usuarioId2"))
+                            .build();
+                }
+
+                Amistad amistad = amistadRepository.crearAmistad(request.getUsuarioId1(), request.getUsuarioId2());
+                return Response.status(Response.Status.CREATED)
+                        .entity(amistad)
+                        .build();
+            } catch (IllegalArgumentException e) {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("Se requieren usuarioId1 y usuarioId2"))
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al crear amistad: " + e.getMessage()))
                         .build();
             }
+        });
+    }
 
-            Amistad amistad = amistadRepository.crearAmistad(request.getUsuarioId1(), request.getUsuarioId2());
-            return Response.status(Response.Status.CREATED)
-                    .entity(amistad)
-                    .build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(new ErrorResponse(e.getMessage()))
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al crear amistad: " + e.getMessage()))
-                    .build();
-        }
+    /**
+     * POST /api/amistades/batch
+     * Crea varias amistades en una sola petición.
+     * 
+     * Body: [{ "usuarioId1": 1, "usuarioId2": 2 }, ...]
+     * Responde 200 con un resultado por elemento, en el mismo orden (ver ResultadoLote).
+     */
+    @POST
+    @Path("/batch")
+    public void crearLote(List<AmistadRequest> solicitudes, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                ResultadoLote.validarTamaño(solicitudes);
+                List<Long[]> pares = new ArrayList<>(solicitudes.size());
+                for (AmistadRequest solicitud : solicitudes) {
+                    pares.add(solicitud == null
+                            ? new Long[]{null, null}
+                            : new Long[]{solicitud.getUsuarioId1(), solicitud.getUsuarioId2()});
+                }
+                return Response.ok(amistadRepository.crearLote(pares)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al crear amistades: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
      * GET /api/amistades/usuario/{usuarioId}
-     * Obtiene todos los amigos de un usuario (objetos Usuario completos).
+     * Obtiene todos los amigos de un usuario, ordenados por ID.
+     * Por defecto cada amigo es un resumen (id, nombre, apellido).
+     * 
+     * Query params opcionales:
+     * - completo: si es true, devuelve los objetos Usuario completos
+     * - limit, cursor: paginación por cursor (ver Paginacion)
      */
     @GET
     @Path("/usuario/{usuarioId}")
-    public Response obtenerAmigos(@PathParam("usuarioId") Long usuarioId) {
-        try {
-            if (!usuarioRepository.buscarPorId(usuarioId).isPresent()) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("Usuario no encontrado con ID: " + usuarioId))
+    @DevuelveEntidad(value = UsuarioResumen.class, completo = Usuario.class)
+    public void obtenerAmigos(@PathParam("usuarioId") Long usuarioId,
+                              @QueryParam("completo") boolean completo,
+                              @QueryParam("limit") Integer limit,
+                              @QueryParam("cursor") String cursor,
+                              @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (!usuarioRepository.buscarPorId(usuarioId).isPresent()) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("Usuario no encontrado con ID: " + usuarioId))
+                            .build();
+                }
+
+                List<Long> amigosIds;
+                Long siguienteId = null;
+                if (Paginacion.solicitada(limit, cursor)) {
+                    Pagina<Long> pagina = amistadRepository.obtenerAmigosIds(
+                            usuarioId, Paginacion.decodificar(cursor), Paginacion.limite(limit));
+                    amigosIds = pagina.getElementos();
+                    siguienteId = pagina.getSiguienteId();
+                } else {
+                    amigosIds = amistadRepository.obtenerAmigosIds(usuarioId);
+                }
+                List<?> amigos = completo
+                        ? usuarioRepository.buscarPorIds(amigosIds)
+                        : usuarioRepository.buscarPorIds(amigosIds, UsuarioResumen::de);
+
+                return Paginacion.ok(new Pagina<>(amigos, siguienteId)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener amigos: " + e.getMessage()))
                         .build();
             }
-
-            List<Long> amigosIds = amistadRepository.obtenerAmigosIds(usuarioId);
-            List<Usuario> amigos = amigosIds.stream()
-                    .map(id -> usuarioRepository.buscarPorId(id))
-                    .filter(opt -> opt.isPresent())
-                    .map(opt -> opt.get())
-                    .collect(Collectors.toList());
-
-            return Response.ok(amigos).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener amigos: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
@@ -82,16 +142,19 @@ public class AmistadResource {
      */
     @GET
     @Path("/verificar/{usuarioId1}/{usuarioId2}")
-    public Response verificarAmistad(@PathParam("usuarioId1") Long usuarioId1, 
-                                     @PathParam("usuarioId2") Long usuarioId2) {
-        try {
-            boolean sonAmigos = amistadRepository.sonAmigos(usuarioId1, usuarioId2);
-            return Response.ok(new AmistadVerificacionResponse(sonAmigos)).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al verificar amistad: " + e.getMessage()))
-                    .build();
-        }
+    public void verificarAmistad(@PathParam("usuarioId1") Long usuarioId1, 
+                                 @PathParam("usuarioId2") Long usuarioId2,
+                                 @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                boolean sonAmigos = amistadRepository.sonAmigos(usuarioId1, usuarioId2);
+                return Response.ok(new AmistadVerificacionResponse(sonAmigos)).build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al verificar amistad: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
@@ -100,38 +163,79 @@ public class AmistadResource {
      */
     @DELETE
     @Path("/{usuarioId1}/{usuarioId2}")
-    public Response eliminarAmistad(@PathParam("usuarioId1") Long usuarioId1, 
-                                     @PathParam("usuarioId2") Long usuarioId2) {
-        try {
-            boolean eliminada = amistadRepository.eliminarAmistad(usuarioId1, usuarioId2);
-            if (eliminada) {
-                return Response.ok(new MessageResponse("Amistad eliminada correctamente")).build();
-            } else {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("No se encontró relación de amistad entre los usuarios"))
+    public void eliminarAmistad(@PathParam("usuarioId1") Long usuarioId1, 
+                                 @PathParam("usuarioId2") Long usuarioId2,
+                                 @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                boolean eliminada = amistadRepository.eliminarAmistad(usuarioId1, usuarioId2);
+                if (eliminada) {
+                    return Response.ok(new MessageResponse("Amistad eliminada correctamente")).build();
+                } else {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("No se encontró relación de amistad entre los usuarios"))
+                            .build();
+                }
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al eliminar amistad: " + e.getMessage()))
                         .build();
             }
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al eliminar amistad: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
      * GET /api/amistades
      * Obtiene todas las relaciones de amistad.
+     * 
+     * Query params opcionales:
+     * - limit, cursor: paginación por cursor, en orden de creación (ver Paginacion)
+     *
+     * Sin paginación la respuesta se escribe en streaming, sin cargar la colección en memoria.
      */
     @GET
-    public Response obtenerTodas() {
-        try {
-            List<Amistad> amistades = amistadRepository.obtenerTodas();
-            return Response.ok(amistades).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener amistades: " + e.getMessage()))
-                    .build();
-        }
+    @DevuelveEntidad(Amistad.class)
+    public void obtenerTodas(@QueryParam("limit") Integer limit,
+                             @QueryParam("cursor") String cursor,
+                             @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (Paginacion.solicitada(limit, cursor)) {
+                    return Paginacion.ok(amistadRepository.obtenerPagina(
+                            Paginacion.decodificar(cursor), Paginacion.limite(limit))).build();
+                }
+                // Sin paginación se transmite la colección completa a medida que se serializa
+                return Response.ok(SalidaStreaming.arreglo(amistadRepository.recorrerTodas())).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener amistades: " + e.getMessage()))
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * GET /api/amistades con Accept: application/x-ndjson
+     * Transmite todas las amistades en orden de creación, una por línea (NDJSON).
+     */
+    @GET
+    @Produces(SalidaStreaming.APPLICATION_NDJSON + ";qs=0.5")
+    @DevuelveEntidad(Amistad.class)
+    public void obtenerTodasNdjson(@Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                return Response.ok(SalidaStreaming.ndjson(amistadRepository.recorrerTodas())).build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .type(MediaType.APPLICATION_JSON)
+                        .entity(new ErrorResponse("Error al obtener amistades: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     // Clases internas para requests y responses
@@ -0,0 +1,310 @@
+package com.example.rest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Caché de lectura de la primera página del feed de amigos y del perfil de cada usuario
+ * (las que se recargan una y otra vez; las páginas siguientes se leen del repositorio).
+ *
+ * - Acotada por memoria: cada entrada pesa una estimación de sus bytes y el total no supera
+ *   la propiedad de sistema "cache.publicaciones.mb" (por defecto 64; 0 la desactiva).
+ * - Desalojo W-TinyLFU (Caffeine): una ventana LRU chica para lo recién llegado y una región
+ *   principal que solo admite entradas más frecuentes que la víctima, así un recorrido de
+ *   usuarios que no vuelven no desplaza a los que recargan seguido.
+ *
+ * Una entrada es la página más larga pedida hasta ahora para esa clave (las páginas están acotadas
+ * por el limit máximo de Paginacion); un pedido con un limit menor o igual se responde recortándola.
+ * Las entradas guardan las publicaciones del repositorio, no copias: los likes se leen en vivo de
+ * su ContadorLikes al serializar, así un like no invalida nada. Editar o eliminar una publicación
+ * la reemplaza en el repositorio e invalida las entradas que la contienen; una publicación nueva
+ * invalida siempre, porque entra al principio de la página.
+ *
+ * Las cargas se hacen con compute sobre la clave y las invalidaciones también: una invalidación
+ * que llega durante una carga espera a que termine y la descarta, así nunca queda guardada una
+ * página calculada antes de la escritura. Los repositorios invalidan después de escribir.
+ */
+public class CachePublicaciones {
+    private static final CachePublicaciones instance = new CachePublicaciones();
+    private static final long BYTES_POR_MB = 1024 * 1024;
+    // Estimaciones de memoria: entrada con su clave y listas, y por publicación su referencia y su ID
+    // (la publicación misma es la del repositorio)
+    private static final int BYTES_ENTRADA = 128;
+    private static final int BYTES_PUBLICACION = 16;
+
+    private final long bytesMaximos = Long.getLong("cache.publicaciones.mb", 64) * BYTES_POR_MB;
+    private final Cache<Clave, Entrada> cache;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    private CachePublicaciones() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(bytesMaximos)
+                .weigher((Clave clave, Entrada entrada) -> entrada.bytes)
+                .recordStats()
+                .build();
+    }
+
+    public static CachePublicaciones getInstance() {
+        return instance;
+    }
+
+    /**
+     * Primera página del feed de amigos de un usuario (ver FeedRepository).
+     */
+    public Pagina<Publicacion> feed(Long usuarioId, int limite) {
+        return obtener(new Clave(Tipo.FEED, usuarioId), limite,
+                l -> PublicacionRepository.getInstance().obtenerPublicacionesAmigos(usuarioId, l, null));
+    }
+
+    /**
+     * Primera página de las publicaciones de un usuario.
+     */
+    public Pagina<Publicacion> perfil(Long usuarioId, int limite) {
+        return obtener(new Clave(Tipo.PERFIL, usuarioId), limite,
+                l -> PublicacionRepository.getInstance().obtenerPorUsuarioId(usuarioId, l, null));
+    }
+
+    private Pagina<Publicacion> obtener(Clave clave, int limite, IntFunction<Pagina<Publicacion>> consulta) {
+        if (bytesMaximos <= 0) {
+            return consulta.apply(limite);
+        }
+        Entrada entrada = cache.getIfPresent(clave);
+        if (entrada != null && entrada.cubre(limite)) {
+            aciertos.increment();
+            return entrada.recortar(limite);
+        }
+        fallos.increment();
+        entrada = cache.asMap().compute(clave, (k, actual) ->
+                actual != null && actual.cubre(limite) ? actual : new Entrada(limite, consulta.apply(limite)));
+        return entrada.recortar(limite);
+    }
+
+    /**
+     * Publicación nueva: cambia la primera página del perfil del autor y la del feed de sus amigos.
+     */
+    void publicacionCreada(Publicacion publicacion) {
+        invalidar(new Clave(Tipo.PERFIL, publicacion.getUsuarioId()), null);
+        invalidarFeedsDeAmigos(publicacion.getUsuarioId(), null);
+    }
+
+    /**
+     * Publicación editada o eliminada: se invalidan solo las entradas que la contienen.
+     */
+    void publicacionModificada(Publicacion publicacion) {
+        invalidar(new Clave(Tipo.PERFIL, publicacion.getUsuarioId()), publicacion.getId());
+        invalidarFeedsDeAmigos(publicacion.getUsuarioId(), publicacion.getId());
+    }
+
+    /**
+     * Amistad creada o eliminada: cambia el feed de los dos usuarios.
+     */
+    void amistadModificada(Long usuarioId1, Long usuarioId2) {
+        invalidar(new Clave(Tipo.FEED, usuarioId1), null);
+        invalidar(new Clave(Tipo.FEED, usuarioId2), null);
+    }
+
+    /**
+     * Invalida el feed de los amigos de un autor. Se recorre el conjunto más chico de los dos:
+     * los amigos del autor o las entradas de la caché (un autor popular puede tener muchos
+     * más amigos que feeds en caché).
+     */
+    private void invalidarFeedsDeAmigos(Long autorId, Long publicacionId) {
+        if (bytesMaximos <= 0) {
+            return;
+        }
+        AmistadRepository amistadRepo = AmistadRepository.getInstance();
+        Set<Long> amigos = amistadRepo.amigosDe(autorId);
+        if (amigos.size() <= cache.estimatedSize()) {
+            for (Long amigoId : amigos) {
+                invalidar(new Clave(Tipo.FEED, amigoId), publicacionId);
+            }
+        } else {
+            for (Clave clave : cache.asMap().keySet()) {
+                if (clave.tipo == Tipo.FEED && amistadRepo.sonAmigos(clave.usuarioId, autorId)) {
+                    invalidar(clave, publicacionId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Quita la entrada si contiene la publicación, o siempre si publicacionId es null.
+     */
+    private void invalidar(Clave clave, Long publicacionId) {
+        if (bytesMaximos <= 0) {
+            return;
+        }
+        cache.asMap().computeIfPresent(clave, (k, entrada) -> {
+            if (publicacionId != null && !entrada.contiene(publicacionId)) {
+                return entrada;
+            }
+            invalidaciones.increment();
+            return null;
+        });
+    }
+
+    /**
+     * Métricas actuales de la caché.
+     */
+    public Metricas metricas() {
+        long pedidos = aciertos.sum() + fallos.sum();
+        long bytes = cache.policy().eviction().map(desalojo -> desalojo.weightedSize().orElse(0L)).orElse(0L);
+        return new Metricas(aciertos.sum(), fallos.sum(),
+                pedidos == 0 ? 0.0 : (double) aciertos.sum() / pedidos,
+                invalidaciones.sum(), cache.stats().evictionCount(), cache.stats().evictionWeight(),
+                cache.estimatedSize(), bytes, bytesMaximos);
+    }
+
+    private enum Tipo {
+        FEED, PERFIL
+    }
+
+    private static final class Clave {
+        private final Tipo tipo;
+        private final long usuarioId;
+
+        Clave(Tipo tipo, Long usuarioId) {
+            this.tipo = tipo;
+            this.usuarioId = usuarioId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave)) return false;
+            Clave clave = (Clave) o;
+            return usuarioId == clave.usuarioId && tipo == clave.tipo;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(usuarioId) * 31 + tipo.ordinal();
+        }
+    }
+
+    /**
+     * Primera página calculada con un limit dado: publicaciones en orden (más recientes primero).
+     * Si la consulta no tenía más resultados, la entrada cubre cualquier limit.
+     */
+    private static final class Entrada {
+        private final int limite;
+        private final List<Publicacion> publicaciones;
+        private final long[] ids; // Descendentes, para buscar por ID
+        private final Long siguienteId;
+        private final int bytes;
+
+        Entrada(int limite, Pagina<Publicacion> pagina) {
+            this.limite = limite;
+            List<Publicacion> elementos = pagina.getElementos();
+            this.publicaciones = new ArrayList<>(elementos.size());
+            this.ids = new long[elementos.size()];
+            long tamaño = BYTES_ENTRADA;
+            for (int i = 0; i < elementos.size(); i++) {
+                Publicacion publicacion = elementos.get(i);
+                publicaciones.add(publicacion);
+                ids[i] = publicacion.getId();
+                tamaño += BYTES_PUBLICACION;
+            }
+            this.siguienteId = pagina.getSiguienteId();
+            this.bytes = (int) Math.min(Integer.MAX_VALUE, tamaño);
+        }
+
+        boolean cubre(int limitePedido) {
+            return limitePedido <= limite || siguienteId == null;
+        }
+
+        boolean contiene(long publicacionId) {
+            int desde = 0;
+            int hasta = ids.length - 1;
+            while (desde <= hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (ids[medio] == publicacionId) {
+                    return true;
+                }
+                if (ids[medio] > publicacionId) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio - 1;
+                }
+            }
+            return false;
+        }
+
+        Pagina<Publicacion> recortar(int limitePedido) {
+            if (limitePedido >= publicaciones.size()) {
+                return new Pagina<>(publicaciones, siguienteId);
+            }
+            return new Pagina<>(publicaciones.subList(0, limitePedido), ids[limitePedido - 1]);
+        }
+    }
+
+    /**
+     * Métricas expuestas en /api/metrics/cache.
+     */
+    public static class Metricas {
+        private final long aciertos;
+        private final long fallos;
+        private final double tasaAciertos;
+        private final long invalidaciones;
+        private final long desalojos;
+        private final long bytesDesalojados;
+        private final long entradas;
+        private final long bytesEstimados;
+        private final long bytesMaximos;
+
+        Metricas(long aciertos, long fallos, double tasaAciertos, long invalidaciones, long desalojos,
+                 long bytesDesalojados, long entradas, long bytesEstimados, long bytesMaximos) {
+            this.aciertos = aciertos;
+            this.fallos = fallos;
+            this.tasaAciertos = tasaAciertos;
+            this.invalidaciones = invalidaciones;
+            this.desalojos = desalojos;
+            this.bytesDesalojados = bytesDesalojados;
+            this.entradas = entradas;
+            this.bytesEstimados = bytesEstimados;
+            this.bytesMaximos = bytesMaximos;
+        }
+
+        public long getAciertos() {
+            return aciertos;
+        }
+
+        public long getFallos() {
+            return fallos;
+        }
+
+        public double getTasaAciertos() {
+            return tasaAciertos;
+        }
+
+        public long getInvalidaciones() {
+            return invalidaciones;
+        }
+
+        public long getDesalojos() {
+            return desalojos;
+        }
+
+        public long getBytesDesalojados() {
+            return bytesDesalojados;
+        }
+
+        public long getEntradas() {
+            return entradas;
+        }
+
+        public long getBytesEstimados() {
+            return bytesEstimados;
+        }
+
+        public long getBytesMaximos() {
+            return bytesMaximos;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.rest;
+
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Campos pedidos con ?fields= (por ejemplo fields=id,nombre,apellido), como una máscara de bits por
+ * entidad: el bit i corresponde a la propiedad i de la entidad, en el orden en que la escribe su
+ * serializador (ver SerializacionEntidades).
+ *
+ * La máscara viaja como atributo del ObjectWriter (ver ProyeccionCampos); cada serializador la
+ * consulta una vez por objeto y escribe solo las propiedades con su bit encendido. Sin el atributo
+ * se escriben todas. No hay reflexión ni mapas intermedios por petición.
+ */
+public final class Campos {
+    public static final String PARAMETRO = "fields";
+    private static final int TODOS = -1;
+
+    public static final Entidad USUARIO = new Entidad("id", "nombre", "apellido", "email", "edad", "telefono", "direccion");
+    public static final Entidad PUBLICACION = new Entidad("id", "usuarioId", "contenido", "fechaCreacion", "likes");
+    public static final Entidad COMENTARIO = new Entidad("id", "publicacionId", "usuarioId", "contenido", "fechaCreacion");
+    public static final Entidad AMISTAD = new Entidad("id", "usuarioId1", "usuarioId2", "fechaAmistad");
+    public static final Entidad USUARIO_RESUMEN = new Entidad("id", "nombre", "apellido");
+    private static final Entidad[] ENTIDADES = {USUARIO, PUBLICACION, COMENTARIO, AMISTAD, USUARIO_RESUMEN};
+
+    private final int[] mascaras = new int[ENTIDADES.length];
+    private final String texto;
+
+    private Campos(Set<String> nombres, String texto) {
+        for (int i = 0; i < ENTIDADES.length; i++) {
+            mascaras[i] = ENTIDADES[i].mascara(nombres);
+        }
+        this.texto = texto;
+    }
+
+    /**
+     * Interpreta el valor de ?fields= (nombres separados por comas) para un recurso que devuelve la entidad dada.
+     * @param entidad entidad de la respuesta, o null si el recurso no devuelve entidades
+     * @throws IllegalArgumentException si está vacío, si el recurso no devuelve entidades o si nombra
+     *         un campo que la entidad no tiene (aunque lo tenga otra)
+     */
+    public static Campos de(String valor, Entidad entidad) {
+        if (entidad == null) {
+            throw new IllegalArgumentException("Este recurso no admite el parámetro " + PARAMETRO);
+        }
+        Set<String> nombres = new LinkedHashSet<>();
+        for (String nombre : valor.split(",")) {
+            String limpio = nombre.trim();
+            if (limpio.isEmpty()) {
+                continue;
+            }
+            if (entidad.indice(limpio) < 0) {
+                throw new IllegalArgumentException("Campo desconocido en " + PARAMETRO + ": " + limpio);
+            }
+            nombres.add(limpio);
+        }
+        if (nombres.isEmpty()) {
+            throw new IllegalArgumentException("El parámetro " + PARAMETRO + " no puede estar vacío");
+        }
+        return new Campos(nombres, valor);
+    }
+
+    /**
+     * Propiedades de una clase de entidad.
+     * @throws IllegalArgumentException si la clase no es una entidad con serializador propio
+     */
+    public static Entidad entidad(Class<?> tipo) {
+        if (tipo == Usuario.class) {
+            return USUARIO;
+        }
+        if (tipo == Publicacion.class) {
+            return PUBLICACION;
+        }
+        if (tipo == Comentario.class) {
+            return COMENTARIO;
+        }
+        if (tipo == Amistad.class) {
+            return AMISTAD;
+        }
+        if (tipo == UsuarioResumen.class) {
+            return USUARIO_RESUMEN;
+        }
+        throw new IllegalArgumentException("No es una entidad con campos proyectables: " + tipo.getName());
+    }
+
+    /**
+     * Máscara de la entidad para la petición que se está serializando (todos los bits si no se pidieron campos).
+     */
+    static int mascara(SerializerProvider provider, Entidad entidad) {
+        Object campos = provider.getAttribute(Campos.class);
+        return campos != null ? ((Campos) campos).mascaras[entidad.posicion] : TODOS;
+    }
+
+    static boolean incluye(int mascara, int campo) {
+        return (mascara & (1 << campo)) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return texto;
+    }
+
+    /**
+     * Propiedades de una entidad, en orden de serialización.
+     */
+    public static final class Entidad {
+        private static int siguiente;
+        private final String[] propiedades;
+        private final int posicion;
+
+        private Entidad(String... propiedades) {
+            this.propiedades = propiedades;
+            this.posicion = siguiente++;
+        }
+
+        int indice(String propiedad) {
+            for (int i = 0; i < propiedades.length; i++) {
+                if (propiedades[i].equals(propiedad)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int mascara(Set<String> nombres) {
+            int mascara = 0;
+            for (int i = 0; i < propiedades.length; i++) {
+                if (nombres.contains(propiedades[i])) {
+                    mascara |= 1 << i;
+                }
+            }
+            return mascara;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.rest;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Objects;
 
 /**
@@ -10,7 +12,8 @@ public class Comentario {
     private Long publicacionId;
     private Long usuarioId;
     private String contenido;
-    private String fechaCreacion;
+    private long fechaCreacion; // Milisegundos desde epoch; se formatea al serializar
+    private long version; // Asignada por el repositorio; no forma parte del JSON
 
     public Comentario() {
     }
@@ -20,7 +23,7 @@ public class Comentario {
         this.publicacionId = publicacionId;
         this.usuarioId = usuarioId;
         this.contenido = contenido;
-        this.fechaCreacion = fechaCreacion;
+        this.fechaCreacion = Fechas.parsear(fechaCreacion);
     }
 
     public Long getId() {
@@ -56,13 +59,35 @@ public class Comentario {
     }
 
     public String getFechaCreacion() {
-        return fechaCreacion;
+        return Fechas.formatear(fechaCreacion);
     }
 
     public void setFechaCreacion(String fechaCreacion) {
+        this.fechaCreacion = Fechas.parsear(fechaCreacion);
+    }
+
+    @JsonIgnore
+    public long getFechaCreacionMillis() {
+        return fechaCreacion;
+    }
+
+    @JsonIgnore
+    public void setFechaCreacionMillis(long fechaCreacion) {
         this.fechaCreacion = fechaCreacion;
     }
 
+    /**
+     * Versión asignada por el repositorio en cada escritura (ver Condicional).
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
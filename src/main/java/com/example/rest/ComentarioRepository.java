@@ -1,22 +1,34 @@
 package com.example.rest;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 /**
  * Repositorio en memoria para gestionar comentarios en publicaciones.
+ * Mantiene dos índices secundarios de IDs de comentario:
+ * - por publicación, en orden de inserción (más antiguos primero)
+ * - por usuario, más recientes primero
+ *
+ * Cada alta o modificación asigna al comentario una versión nueva del reloj del repositorio.
+ * Además, cada publicación tiene la versión de su colección de comentarios: la del último
+ * comentario creado, modificado o eliminado en ella. Se actualiza después de la escritura.
+ *
+ * Las escrituras se anotan en el RegistroEscrituras antes de hacerse visibles.
  */
 public class ComentarioRepository {
     private static final ComentarioRepository instance = new ComentarioRepository();
+    private final MetricasServicio.Operaciones operaciones = MetricasServicio.getInstance().repositorio("comentarios");
     private final Map<Long, Comentario> comentarios = new ConcurrentHashMap<>();
+    private final Map<Long, ConcurrentSkipListSet<Long>> comentariosPorPublicacion = new ConcurrentHashMap<>();
+    private final Map<Long, ConcurrentSkipListSet<Long>> comentariosPorUsuario = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versionesPorPublicacion = new ConcurrentHashMap<>();
     private final AtomicLong idGenerator = new AtomicLong(1);
+    private final AtomicLong reloj = new AtomicLong();
     private final UsuarioRepository usuarioRepository = UsuarioRepository.getInstance();
     private final PublicacionRepository publicacionRepository = PublicacionRepository.getInstance();
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final RegistroEscrituras wal = RegistroEscrituras.getInstance();
 
     private ComentarioRepository() {
     }
@@ -29,6 +41,45 @@ public class ComentarioRepository {
      * Crea un nuevo comentario en una publicación.
      */
     public Comentario crear(Comentario comentario) {
+        operaciones.contar("crear");
+        validarNuevo(comentario);
+        wal.confirmar(insertar(comentario, idGenerator.getAndIncrement(), Fechas.ahora()));
+        return comentario;
+    }
+
+    /**
+     * Crea varios comentarios en una sola operación. Cada elemento se valida por separado
+     * y recibe su propio resultado; los válidos se insertan con IDs reservados en un solo bloque.
+     */
+    public List<ResultadoLote<Comentario>> crearLote(List<Comentario> lote) {
+        operaciones.contar("crearLote");
+        String[] errores = new String[lote.size()];
+        int validos = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            try {
+                validarNuevo(lote.get(i));
+                validos++;
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
+            }
+        }
+
+        long siguienteId = idGenerator.getAndAdd(validos);
+        long posicion = 0;
+        List<ResultadoLote<Comentario>> resultados = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            if (errores[i] != null) {
+                resultados.add(ResultadoLote.error(i, errores[i]));
+            } else {
+                posicion = insertar(lote.get(i), siguienteId++, Fechas.ahora());
+                resultados.add(ResultadoLote.creado(i, lote.get(i)));
+            }
+        }
+        wal.confirmar(posicion); // Confirmar el último registro confirma todo el lote
+        return resultados;
+    }
+
+    private void validarNuevo(Comentario comentario) {
         if (comentario == null) {
             throw new IllegalArgumentException("El comentario no puede ser nulo");
         }
@@ -54,28 +105,57 @@ public class ComentarioRepository {
         if (comentario.getContenido() == null || comentario.getContenido().trim().isEmpty()) {
             throw new IllegalArgumentException("El contenido del comentario no puede estar vacío");
         }
+    }
+
+    /**
+     * Comentario recuperado del RegistroEscrituras: conserva su ID y su fecha, y deja el
+     * generador de IDs después de él.
+     */
+    void restaurar(Comentario comentario) {
+        idGenerator.accumulateAndGet(comentario.getId() + 1, Math::max);
+        insertar(comentario, comentario.getId(), comentario.getFechaCreacionMillis());
+    }
 
-        Long nuevoId = idGenerator.getAndIncrement();
+    /**
+     * Inserta el comentario y devuelve la posición de su registro para RegistroEscrituras.confirmar.
+     */
+    private long insertar(Comentario comentario, Long nuevoId, long fechaCreacion) {
         comentario.setId(nuevoId);
-        comentario.setFechaCreacion(LocalDateTime.now().format(formatter));
+        comentario.setFechaCreacionMillis(fechaCreacion);
+        long posicion = wal.comentarioCreado(comentario);
+        comentario.setVersion(reloj.incrementAndGet());
         comentarios.put(nuevoId, comentario);
-        return comentario;
+        comentariosPorPublicacion
+                .computeIfAbsent(comentario.getPublicacionId(), k -> new ConcurrentSkipListSet<>())
+                .add(nuevoId);
+        comentariosPorUsuario
+                .computeIfAbsent(comentario.getUsuarioId(), k -> new ConcurrentSkipListSet<>(Comparator.reverseOrder()))
+                .add(nuevoId);
+        cambioEnPublicacion(comentario.getPublicacionId(), comentario.getVersion());
+        return posicion;
     }
 
     /**
      * Obtiene todos los comentarios de una publicación.
      */
     public List<Comentario> obtenerPorPublicacionId(Long publicacionId) {
-        return comentarios.values().stream()
-                .filter(c -> c.getPublicacionId().equals(publicacionId))
-                .sorted((c1, c2) -> c1.getFechaCreacion().compareTo(c2.getFechaCreacion())) // Más antiguos primero
-                .collect(Collectors.toList());
+        operaciones.contar("obtenerPorPublicacionId");
+        return resolver(comentariosPorPublicacion.get(publicacionId)); // Más antiguos primero
+    }
+
+    /**
+     * Obtiene una página de comentarios de una publicación, más antiguos primero.
+     */
+    public Pagina<Comentario> obtenerPorPublicacionId(Long publicacionId, Long despuesDeId, int limite) {
+        operaciones.contar("obtenerPorPublicacionId");
+        return Pagina.desde(indice(comentariosPorPublicacion, publicacionId), despuesDeId, limite, comentarios::get);
     }
 
     /**
      * Obtiene un comentario por ID.
      */
     public Optional<Comentario> buscarPorId(Long id) {
+        operaciones.contar("buscarPorId");
         return Optional.ofNullable(comentarios.get(id));
     }
 
@@ -83,57 +163,148 @@ public class ComentarioRepository {
      * Obtiene todos los comentarios de un usuario.
      */
     public List<Comentario> obtenerPorUsuarioId(Long usuarioId) {
-        return comentarios.values().stream()
-                .filter(c -> c.getUsuarioId().equals(usuarioId))
-                .sorted((c1, c2) -> c2.getFechaCreacion().compareTo(c1.getFechaCreacion()))
-                .collect(Collectors.toList());
+        operaciones.contar("obtenerPorUsuarioId");
+        return resolver(comentariosPorUsuario.get(usuarioId)); // Más recientes primero
+    }
+
+    /**
+     * Obtiene una página de comentarios de un usuario, más recientes primero.
+     */
+    public Pagina<Comentario> obtenerPorUsuarioId(Long usuarioId, Long despuesDeId, int limite) {
+        operaciones.contar("obtenerPorUsuarioId");
+        return Pagina.desde(indice(comentariosPorUsuario, usuarioId), despuesDeId, limite, comentarios::get);
     }
 
     /**
      * Actualiza un comentario.
      */
     public Comentario actualizar(Long id, Comentario comentarioActualizado) {
+        operaciones.contar("actualizar");
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
         }
 
-        Comentario comentarioExistente = comentarios.get(id);
-        if (comentarioExistente == null) {
-            throw new IllegalArgumentException("Comentario no encontrado con ID: " + id);
-        }
-
         if (comentarioActualizado.getContenido() == null || comentarioActualizado.getContenido().trim().isEmpty()) {
             throw new IllegalArgumentException("El contenido del comentario no puede estar vacío");
         }
 
-        comentarioActualizado.setId(id);
-        comentarioActualizado.setPublicacionId(comentarioExistente.getPublicacionId()); // No se puede cambiar la publicación
-        comentarioActualizado.setUsuarioId(comentarioExistente.getUsuarioId()); // No se puede cambiar el autor
-        comentarioActualizado.setFechaCreacion(comentarioExistente.getFechaCreacion()); // Mantener fecha original
-        comentarios.put(id, comentarioActualizado);
-        return comentarioActualizado;
+        // computeIfPresent ordena la actualización con las bajas (sueltas o por publicación): si la
+        // baja ganó no se anota nada; si no, el registro de la actualización queda antes que el de la baja
+        long[] posicion = new long[1];
+        Comentario resultado = comentarios.computeIfPresent(id, (clave, comentarioExistente) -> {
+            posicion[0] = wal.comentarioActualizado(id, comentarioActualizado.getContenido());
+            comentarioActualizado.setId(id);
+            comentarioActualizado.setPublicacionId(comentarioExistente.getPublicacionId()); // No se puede cambiar la publicación
+            comentarioActualizado.setUsuarioId(comentarioExistente.getUsuarioId()); // No se puede cambiar el autor
+            comentarioActualizado.setFechaCreacionMillis(comentarioExistente.getFechaCreacionMillis()); // Mantener fecha original
+            comentarioActualizado.setVersion(reloj.incrementAndGet());
+            return comentarioActualizado;
+        });
+        if (resultado == null) {
+            throw new IllegalArgumentException("Comentario no encontrado con ID: " + id);
+        }
+        cambioEnPublicacion(resultado.getPublicacionId(), resultado.getVersion());
+        wal.confirmar(posicion[0]);
+        return resultado;
     }
 
     /**
      * Elimina un comentario.
      */
     public boolean eliminar(Long id) {
-        if (id == null) {
+        operaciones.contar("eliminar");
+        if (id == null || !comentarios.containsKey(id)) {
             return false;
         }
-        return comentarios.remove(id) != null;
+        long posicion = wal.comentarioEliminado(id);
+        Comentario eliminado = comentarios.remove(id);
+        if (eliminado == null) {
+            return false; // Otra baja concurrente; su registro repetido no cambia nada al recuperar
+        }
+        quitarDelIndice(comentariosPorPublicacion, eliminado.getPublicacionId(), id);
+        quitarDelIndice(comentariosPorUsuario, eliminado.getUsuarioId(), id);
+        cambioEnPublicacion(eliminado.getPublicacionId(), reloj.incrementAndGet());
+        wal.confirmar(posicion);
+        return true;
     }
 
     /**
      * Elimina todos los comentarios de una publicación.
      */
     public void eliminarPorPublicacionId(Long publicacionId) {
-        List<Long> idsAEliminar = comentarios.values().stream()
-                .filter(c -> c.getPublicacionId().equals(publicacionId))
-                .map(Comentario::getId)
-                .collect(Collectors.toList());
-        
-        idsAEliminar.forEach(comentarios::remove);
+        operaciones.contar("eliminarPorPublicacionId");
+        if (publicacionId == null || !comentariosPorPublicacion.containsKey(publicacionId)) {
+            return;
+        }
+        long posicion = wal.comentariosDePublicacionEliminados(publicacionId);
+        Set<Long> idsAEliminar = comentariosPorPublicacion.remove(publicacionId);
+        if (idsAEliminar == null) {
+            return;
+        }
+        for (Long id : idsAEliminar) {
+            Comentario eliminado = comentarios.remove(id);
+            if (eliminado != null) {
+                quitarDelIndice(comentariosPorUsuario, eliminado.getUsuarioId(), id);
+            }
+        }
+        // La versión avanza en lugar de borrarse: volver a 0 repetiría un ETag ya entregado
+        cambioEnPublicacion(publicacionId, reloj.incrementAndGet());
+        wal.confirmar(posicion);
+    }
+
+    /**
+     * Olvida la versión de los comentarios de una publicación ya eliminada: sin la publicación el
+     * GET de sus comentarios es 404, así que la versión no se consulta más, y quitarla evita que
+     * el mapa crezca con cada baja. Si un alta concurrente la vuelve a crear, sale del reloj del
+     * repositorio, que solo avanza: nunca repite un ETag ya entregado.
+     */
+    public void publicacionEliminada(Long publicacionId) {
+        if (publicacionId != null) {
+            versionesPorPublicacion.remove(publicacionId);
+        }
+    }
+
+    /**
+     * Versión de la colección de comentarios de una publicación (0 si nunca tuvo comentarios;
+     * después de eliminarlos todos queda la versión de esa baja, hasta que se elimina la publicación).
+     * Leerla antes que los comentarios (ver Condicional).
+     */
+    public long versionDePublicacion(Long publicacionId) {
+        operaciones.contar("versionDePublicacion");
+        return versionesPorPublicacion.getOrDefault(publicacionId, 0L);
+    }
+
+    /**
+     * Convierte una lista de IDs del índice en comentarios, respetando su orden.
+     */
+    private List<Comentario> resolver(Set<Long> ids) {
+        List<Comentario> resultado = new ArrayList<>();
+        if (ids == null) {
+            return resultado;
+        }
+        for (Long id : ids) {
+            Comentario comentario = comentarios.get(id);
+            if (comentario != null) {
+                resultado.add(comentario);
+            }
+        }
+        return resultado;
+    }
+
+    private void cambioEnPublicacion(Long publicacionId, long version) {
+        versionesPorPublicacion.merge(publicacionId, version, Math::max);
+    }
+
+    private static NavigableSet<Long> indice(Map<Long, ConcurrentSkipListSet<Long>> indices, Long clave) {
+        NavigableSet<Long> ids = indices.get(clave);
+        return ids != null ? ids : Collections.emptyNavigableSet();
+    }
+
+    private void quitarDelIndice(Map<Long, ConcurrentSkipListSet<Long>> indice, Long clave, Long id) {
+        Set<Long> ids = indice.get(clave);
+        if (ids != null) {
+            ids.remove(id);
+        }
     }
 }
 
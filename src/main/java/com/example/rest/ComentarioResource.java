@@ -1,7 +1,12 @@
 package com.example.rest;
 
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
 
@@ -9,8 +14,9 @@ import java.util.List;
  * Recurso REST para gestionar comentarios en publicaciones.
  */
 @Path("/comentarios")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+@LimiteEscrituras
 public class ComentarioResource {
 
     private final ComentarioRepository comentarioRepository = ComentarioRepository.getInstance();
@@ -20,67 +26,115 @@ public class ComentarioResource {
     /**
      * GET /api/comentarios/publicacion/{publicacionId}
      * Obtiene todos los comentarios de una publicación.
+     * 
+     * Query params opcionales:
+     * - limit, cursor: paginación por cursor (ver Paginacion)
+     *
+     * Responde con el ETag de la colección; si coincide con If-None-Match devuelve 304 sin cuerpo.
      */
     @GET
     @Path("/publicacion/{publicacionId}")
-    public Response obtenerPorPublicacion(@PathParam("publicacionId") Long publicacionId) {
-        try {
-            if (!publicacionRepository.buscarPorId(publicacionId).isPresent()) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("Publicación no encontrada con ID: " + publicacionId))
+    @DevuelveEntidad(Comentario.class)
+    public void obtenerPorPublicacion(@PathParam("publicacionId") Long publicacionId,
+                                      @QueryParam("limit") Integer limit,
+                                      @QueryParam("cursor") String cursor,
+                                      @Context Request request,
+                                      @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (!publicacionRepository.buscarPorId(publicacionId).isPresent()) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("Publicación no encontrada con ID: " + publicacionId))
+                            .build();
+                }
+
+                // La versión se lee antes que los comentarios (ver Condicional)
+                EntityTag etiqueta = Condicional.etiqueta(request, comentarioRepository.versionDePublicacion(publicacionId));
+                Response.ResponseBuilder noModificado = Condicional.noModificado(request, etiqueta);
+                if (noModificado != null) {
+                    return noModificado.build();
+                }
+
+                if (Paginacion.solicitada(limit, cursor)) {
+                    return Paginacion.ok(comentarioRepository.obtenerPorPublicacionId(
+                            publicacionId, Paginacion.decodificar(cursor), Paginacion.limite(limit))).tag(etiqueta).build();
+                }
+                List<Comentario> comentarios = comentarioRepository.obtenerPorPublicacionId(publicacionId);
+                return Response.ok(comentarios).tag(etiqueta).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener comentarios: " + e.getMessage()))
                         .build();
             }
-
-            List<Comentario> comentarios = comentarioRepository.obtenerPorPublicacionId(publicacionId);
-            return Response.ok(comentarios).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener comentarios: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
      * GET /api/comentarios/{id}
      * Obtiene un comentario por ID.
+     * Responde con ETag; si coincide con If-None-Match devuelve 304 sin cuerpo.
      */
     @GET
     @Path("/{id}")
-    public Response obtenerPorId(@PathParam("id") Long id) {
-        try {
-            return comentarioRepository.buscarPorId(id)
-                    .map(comentario -> Response.ok(comentario).build())
-                    .orElse(Response.status(Response.Status.NOT_FOUND)
-                            .entity(new ErrorResponse("Comentario no encontrado con ID: " + id))
-                            .build());
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener comentario: " + e.getMessage()))
-                    .build();
-        }
+    @DevuelveEntidad(Comentario.class)
+    public void obtenerPorId(@PathParam("id") Long id, @Context Request request, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                return comentarioRepository.buscarPorId(id)
+                        .map(comentario -> Condicional.ok(request, Condicional.etiqueta(request, comentario.getVersion()), comentario).build())
+                        .orElse(Response.status(Response.Status.NOT_FOUND)
+                                .entity(new ErrorResponse("Comentario no encontrado con ID: " + id))
+                                .build());
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener comentario: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
      * GET /api/comentarios/usuario/{usuarioId}
      * Obtiene todos los comentarios de un usuario.
+     * 
+     * Query params opcionales:
+     * - limit, cursor: paginación por cursor (ver Paginacion)
      */
     @GET
     @Path("/usuario/{usuarioId}")
-    public Response obtenerPorUsuario(@PathParam("usuarioId") Long usuarioId) {
-        try {
-            if (!usuarioRepository.buscarPorId(usuarioId).isPresent()) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("Usuario no encontrado con ID: " + usuarioId))
+    @DevuelveEntidad(Comentario.class)
+    public void obtenerPorUsuario(@PathParam("usuarioId") Long usuarioId,
+                                  @QueryParam("limit") Integer limit,
+                                  @QueryParam("cursor") String cursor,
+                                  @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (!usuarioRepository.buscarPorId(usuarioId).isPresent()) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("Usuario no encontrado con ID: " + usuarioId))
+                            .build();
+                }
+
+                if (Paginacion.solicitada(limit, cursor)) {
+                    return Paginacion.ok(comentarioRepository.obtenerPorUsuarioId(
+                            usuarioId, Paginacion.decodificar(cursor), Paginacion.limite(limit))).build();
+                }
+                List<Comentario> comentarios = comentarioRepository.obtenerPorUsuarioId(usuarioId);
+                return Response.ok(comentarios).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener comentarios: " + e.getMessage()))
                         .build();
             }
-
-            List<Comentario> comentarios = comentarioRepository.obtenerPorUsuarioId(usuarioId);
-            return Response.ok(comentarios).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener comentarios: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
@@ -88,27 +142,53 @@ public class ComentarioResource {
      * Crea un nuevo comentario en una publicación.
      */
     @POST
-    public Response crear(Comentario comentario) {
-        try {
-            if (comentario == null) {
+    public void crear(Comentario comentario, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (comentario == null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("El comentario no puede ser nulo"))
+                            .build();
+                }
+
+                Comentario comentarioCreado = comentarioRepository.crear(comentario);
+                return Response.status(Response.Status.CREATED)
+                        .entity(comentarioCreado)
+                        .build();
+            } catch (IllegalArgumentException e) {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("El comentario no puede ser nulo"))
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al crear comentario: " + e.getMessage()))
                         .build();
             }
+        });
+    }
 
-            Comentario comentarioCreado = comentarioRepository.crear(comentario);
-            return Response.status(Response.Status.CREATED)
-                    .entity(comentarioCreado)
-                    .build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(new ErrorResponse(e.getMessage()))
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al crear comentario: " + e.getMessage()))
-                    .build();
-        }
+    /**
+     * POST /api/comentarios/batch
+     * Crea varios comentarios en una sola petición.
+     * Responde 200 con un resultado por elemento, en el mismo orden (ver ResultadoLote).
+     */
+    @POST
+    @Path("/batch")
+    public void crearLote(List<Comentario> comentarios, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                ResultadoLote.validarTamaño(comentarios);
+                return Response.ok(comentarioRepository.crearLote(comentarios)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al crear comentarios: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
@@ -117,28 +197,30 @@ public class ComentarioResource {
      */
     @PUT
     @Path("/{id}")
-    public Response actualizar(@PathParam("id") Long id, Comentario comentario) {
-        try {
-            if (comentario == null) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("El comentario no puede ser nulo"))
+    public void actualizar(@PathParam("id") Long id, Comentario comentario, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (comentario == null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("El comentario no puede ser nulo"))
+                            .build();
+                }
+
+                Comentario comentarioActualizado = comentarioRepository.actualizar(id, comentario);
+                return Response.ok(comentarioActualizado).build();
+            } catch (IllegalArgumentException e) {
+                Response.Status status = e.getMessage().contains("no encontrado") 
+                        ? Response.Status.NOT_FOUND 
+                        : Response.Status.BAD_REQUEST;
+                return Response.status(status)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al actualizar comentario: " + e.getMessage()))
                         .build();
             }
-
-            Comentario comentarioActualizado = comentarioRepository.actualizar(id, comentario);
-            return Response.ok(comentarioActualizado).build();
-        } catch (IllegalArgumentException e) {
-            Response.Status status = e.getMessage().contains("no encontrado") 
-                    ? Response.Status.NOT_FOUND 
-                    : Response.Status.BAD_REQUEST;
-            return Response.status(status)
-                    .entity(new ErrorResponse(e.getMessage()))
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al actualizar comentario: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
@@ -147,21 +229,23 @@ public class ComentarioResource {
      */
     @DELETE
     @Path("/{id}")
-    public Response eliminar(@PathParam("id") Long id) {
-        try {
-            boolean eliminado = comentarioRepository.eliminar(id);
-            if (eliminado) {
-                return Response.ok(new MessageResponse("Comentario eliminado correctamente")).build();
-            } else {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("Comentario no encontrado con ID: " + id))
+    public void eliminar(@PathParam("id") Long id, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                boolean eliminado = comentarioRepository.eliminar(id);
+                if (eliminado) {
+                    return Response.ok(new MessageResponse("Comentario eliminado correctamente")).build();
+                } else {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("Comentario no encontrado con ID: " + id))
+                            .build();
+                }
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al eliminar comentario: " + e.getMessage()))
                         .build();
             }
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al eliminar comentario: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     public static class ErrorResponse {
@@ -0,0 +1,485 @@
+package com.example.rest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresión de respuestas (Content-Encoding gzip o deflate) según Accept-Encoding.
+ *
+ * - Solo se comprime por encima de un umbral: la salida se acumula hasta "compresion.umbral.bytes"
+ *   (por defecto 1024; negativo desactiva la compresión) y, si la respuesta termina antes, se envía
+ *   tal cual. Las colecciones en streaming se comprimen a medida que se escriben.
+ * - Las respuestas con ETag se guardan comprimidas en una caché acotada por memoria
+ *   ("compresion.cache.mb", por defecto 16; 0 la desactiva), con clave URI, ETag y codificación:
+ *   un payload que se pide seguido se serializa y comprime una sola vez. El ETag incluye la versión
+ *   y el formato (ver Condicional), así que una escritura cambia la clave y la entrada vieja se desaloja.
+ * - Un ETag fuerte identifica bytes exactos: al comprimir se envía débil (W/), como hacen los proxies.
+ *   If-None-Match se compara en forma débil en GET, así que el 304 sigue funcionando.
+ *
+ * El tiempo de compresión que se reporta es el de las llamadas al Deflater, sin la escritura al socket.
+ */
+public class Compresion {
+    private static final Compresion instance = new Compresion();
+    private static final long BYTES_POR_MB = 1024 * 1024;
+    private static final int BYTES_ENTRADA = 96;
+    private static final int BUFFER = 8192;
+
+    private final int umbral = Integer.getInteger("compresion.umbral.bytes", 1024);
+    private final long bytesMaximos = Long.getLong("compresion.cache.mb", 16) * BYTES_POR_MB;
+    private final Cache<Clave, byte[]> cache;
+    private final LongAdder comprimidas = new LongAdder();
+    private final LongAdder bajoUmbral = new LongAdder();
+    private final LongAdder bytesOriginales = new LongAdder();
+    private final LongAdder bytesComprimidos = new LongAdder();
+    private final LongAdder nanosCompresion = new LongAdder();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    private Compresion() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(bytesMaximos, 0))
+                .weigher((Clave clave, byte[] bytes) -> BYTES_ENTRADA + clave.uri.length() + bytes.length)
+                .recordStats()
+                .build();
+    }
+
+    public static Compresion getInstance() {
+        return instance;
+    }
+
+    /**
+     * Codificación a usar según Accept-Encoding: "gzip", "deflate" o null si no acepta ninguna.
+     * Gana la de mayor q; a igual q, gzip. "*" habilita gzip si no fue excluido explícitamente.
+     */
+    static String negociar(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double comodin = -1;
+        for (String parte : acceptEncoding.split(",")) {
+            String[] campos = parte.split(";");
+            String codificacion = campos[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < campos.length; i++) {
+                String parametro = campos[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parametro.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (codificacion) {
+                case "gzip", "x-gzip" -> gzip = q;
+                case "deflate" -> deflate = q;
+                case "*" -> comodin = q;
+                default -> { }
+            }
+        }
+        if (gzip < 0) {
+            gzip = comodin;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return "gzip";
+        }
+        return deflate > 0 ? "deflate" : null;
+    }
+
+    /**
+     * Tipos que vale la pena comprimir: JSON, NDJSON, los formatos binarios y texto.
+     * Los eventos (text/event-stream) quedan afuera: se envían de a uno y con flush.
+     */
+    static boolean comprimible(MediaType tipo) {
+        if (tipo == null) {
+            return false;
+        }
+        String subtipo = tipo.getSubtype();
+        if ("text".equals(tipo.getType())) {
+            return !"event-stream".equals(subtipo);
+        }
+        return "application".equals(tipo.getType())
+                && (subtipo.equals("json") || subtipo.endsWith("+json")
+                || subtipo.equals("x-ndjson") || subtipo.equals("cbor") || subtipo.equals("x-jackson-smile"));
+    }
+
+    /**
+     * Métricas actuales de la compresión y de su caché.
+     */
+    public Metricas metricas() {
+        long originales = bytesOriginales.sum();
+        long pedidos = aciertos.sum() + fallos.sum();
+        long bytes = cache.policy().eviction().map(desalojo -> desalojo.weightedSize().orElse(0L)).orElse(0L);
+        return new Metricas(comprimidas.sum(), bajoUmbral.sum(), originales, bytesComprimidos.sum(),
+                originales == 0 ? 0.0 : (double) bytesComprimidos.sum() / originales,
+                nanosCompresion.sum() / 1_000_000.0, umbral,
+                aciertos.sum(), fallos.sum(), pedidos == 0 ? 0.0 : (double) aciertos.sum() / pedidos,
+                cache.estimatedSize(), bytes, Math.max(bytesMaximos, 0));
+    }
+
+    /**
+     * Interceptor registrado en JaxRsApplication: decide si la respuesta se comprime y, para las
+     * que tienen ETag, la sirve desde la caché o la guarda al terminar de escribirla.
+     */
+    @Provider
+    public static class Interceptor implements WriterInterceptor {
+        @Context
+        private HttpHeaders headers;
+
+        @Context
+        private UriInfo uriInfo;
+
+        @Override
+        public void aroundWriteTo(WriterInterceptorContext contexto) throws IOException {
+            Compresion compresion = Compresion.getInstance();
+            MultivaluedMap<String, Object> encabezados = contexto.getHeaders();
+            if (compresion.umbral < 0 || encabezados.containsKey(HttpHeaders.CONTENT_ENCODING)
+                    || !comprimible(contexto.getMediaType())) {
+                contexto.proceed();
+                return;
+            }
+            encabezados.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            String codificacion = negociar(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+            if (codificacion == null) {
+                contexto.proceed();
+                return;
+            }
+
+            Object etiqueta = encabezados.getFirst(HttpHeaders.ETAG);
+            Clave clave = etiqueta != null && compresion.bytesMaximos > 0
+                    ? new Clave(uriInfo.getRequestUri().toString(), etiqueta.toString(), codificacion)
+                    : null;
+            OutputStream original = contexto.getOutputStream();
+            if (clave != null) {
+                byte[] guardado = compresion.cache.getIfPresent(clave);
+                if (guardado != null) {
+                    compresion.aciertos.increment();
+                    marcarComprimida(encabezados, codificacion);
+                    original.write(guardado);
+                    return;
+                }
+            }
+
+            SalidaUmbral salida = new SalidaUmbral(compresion, original, encabezados, codificacion, clave != null);
+            contexto.setOutputStream(salida);
+            try {
+                contexto.proceed();
+                salida.terminar();
+            } finally {
+                contexto.setOutputStream(original);
+            }
+            byte[] comprimido = salida.copiaComprimida();
+            if (clave != null && comprimido != null) {
+                compresion.fallos.increment();
+                compresion.cache.put(clave, comprimido);
+            }
+        }
+    }
+
+    private static void marcarComprimida(MultivaluedMap<String, Object> encabezados, String codificacion) {
+        encabezados.putSingle(HttpHeaders.CONTENT_ENCODING, codificacion);
+        encabezados.remove(HttpHeaders.CONTENT_LENGTH);
+        Object etiqueta = encabezados.getFirst(HttpHeaders.ETAG);
+        if (etiqueta != null) {
+            String valor = etiqueta.toString();
+            if (!valor.startsWith("W/")) {
+                encabezados.putSingle(HttpHeaders.ETAG, "W/" + valor);
+            }
+        }
+    }
+
+    /**
+     * Acumula la salida hasta el umbral; si lo supera, marca la respuesta como comprimida (todavía
+     * no se escribió nada, así que los encabezados pueden cambiar) y sigue comprimiendo.
+     */
+    private static final class SalidaUmbral extends OutputStream {
+        private final Compresion compresion;
+        private final OutputStream destino;
+        private final MultivaluedMap<String, Object> encabezados;
+        private final String codificacion;
+        private final ByteArrayOutputStream copia;
+        private byte[] pendiente = new byte[256];
+        private int pendientes;
+        private Compresor compresor;
+
+        SalidaUmbral(Compresion compresion, OutputStream destino, MultivaluedMap<String, Object> encabezados,
+                     String codificacion, boolean copiar) {
+            this.compresion = compresion;
+            this.destino = destino;
+            this.encabezados = encabezados;
+            this.codificacion = codificacion;
+            this.copia = copiar ? new ByteArrayOutputStream() : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compresor != null) {
+                compresor.escribir(b, off, len);
+                return;
+            }
+            if (pendientes + len <= compresion.umbral) {
+                if (pendientes + len > pendiente.length) {
+                    pendiente = Arrays.copyOf(pendiente, Math.max(pendientes + len, pendiente.length * 2));
+                }
+                System.arraycopy(b, off, pendiente, pendientes, len);
+                pendientes += len;
+                return;
+            }
+            marcarComprimida(encabezados, codificacion);
+            compresor = new Compresor(compresion, destino, copia, "gzip".equals(codificacion));
+            compresor.escribir(pendiente, 0, pendientes);
+            pendiente = null;
+            compresor.escribir(b, off, len);
+        }
+
+        // Los flush intermedios (por ejemplo al cerrar un generador de Jackson) no fuerzan la salida
+        @Override
+        public void flush() {
+        }
+
+        void terminar() throws IOException {
+            if (compresor != null) {
+                compresor.terminar();
+            } else {
+                compresion.bajoUmbral.increment();
+                destino.write(pendiente, 0, pendientes);
+            }
+        }
+
+        byte[] copiaComprimida() {
+            return compresor != null && copia != null ? copia.toByteArray() : null;
+        }
+    }
+
+    /**
+     * Deflater con formato gzip (encabezado, datos crudos y CRC32) o zlib ("deflate" en HTTP).
+     */
+    private static final class Compresor {
+        private static final byte[] ENCABEZADO_GZIP = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        private final Compresion compresion;
+        private final OutputStream destino;
+        private final ByteArrayOutputStream copia;
+        private final Deflater deflater;
+        private final CRC32 crc;
+        private final byte[] buffer = new byte[BUFFER];
+        private long originales;
+        private long comprimidos;
+
+        Compresor(Compresion compresion, OutputStream destino, ByteArrayOutputStream copia, boolean gzip)
+                throws IOException {
+            this.compresion = compresion;
+            this.destino = destino;
+            this.copia = copia;
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+            this.crc = gzip ? new CRC32() : null;
+            if (gzip) {
+                emitir(ENCABEZADO_GZIP, ENCABEZADO_GZIP.length);
+            }
+        }
+
+        void escribir(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            originales += len;
+            long inicio = System.nanoTime();
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                vaciar(inicio);
+                inicio = System.nanoTime();
+            }
+            compresion.nanosCompresion.add(System.nanoTime() - inicio);
+        }
+
+        void terminar() throws IOException {
+            try {
+                deflater.finish();
+                long inicio = System.nanoTime();
+                while (!deflater.finished()) {
+                    vaciar(inicio);
+                    inicio = System.nanoTime();
+                }
+                compresion.nanosCompresion.add(System.nanoTime() - inicio);
+                if (crc != null) {
+                    byte[] cola = new byte[8];
+                    escribirEntero(cola, 0, (int) crc.getValue());
+                    escribirEntero(cola, 4, (int) originales);
+                    emitir(cola, cola.length);
+                }
+                compresion.comprimidas.increment();
+                compresion.bytesOriginales.add(originales);
+                compresion.bytesComprimidos.add(comprimidos);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        // Comprime un bloque y lo escribe; solo el deflate cuenta como tiempo de compresión
+        private void vaciar(long inicio) throws IOException {
+            int n = deflater.deflate(buffer);
+            compresion.nanosCompresion.add(System.nanoTime() - inicio);
+            if (n > 0) {
+                emitir(buffer, n);
+            }
+        }
+
+        private void emitir(byte[] bytes, int n) throws IOException {
+            destino.write(bytes, 0, n);
+            comprimidos += n;
+            if (copia != null) {
+                copia.write(bytes, 0, n);
+            }
+        }
+
+        private static void escribirEntero(byte[] destino, int desde, int valor) {
+            destino[desde] = (byte) valor;
+            destino[desde + 1] = (byte) (valor >> 8);
+            destino[desde + 2] = (byte) (valor >> 16);
+            destino[desde + 3] = (byte) (valor >> 24);
+        }
+    }
+
+    private static final class Clave {
+        private final String uri;
+        private final String etiqueta;
+        private final String codificacion;
+
+        Clave(String uri, String etiqueta, String codificacion) {
+            this.uri = uri;
+            this.etiqueta = etiqueta;
+            this.codificacion = codificacion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave)) return false;
+            Clave clave = (Clave) o;
+            return uri.equals(clave.uri) && etiqueta.equals(clave.etiqueta) && codificacion.equals(clave.codificacion);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(uri, etiqueta, codificacion);
+        }
+    }
+
+    /**
+     * Métricas expuestas en /api/metrics/compresion.
+     */
+    public static class Metricas {
+        private final long respuestasComprimidas;
+        private final long respuestasBajoUmbral;
+        private final long bytesOriginales;
+        private final long bytesComprimidos;
+        private final double tasaCompresion;
+        private final double tiempoCompresionMs;
+        private final int umbralBytes;
+        private final long aciertosCache;
+        private final long fallosCache;
+        private final double tasaAciertosCache;
+        private final long entradasCache;
+        private final long bytesCache;
+        private final long bytesMaximosCache;
+
+        Metricas(long respuestasComprimidas, long respuestasBajoUmbral, long bytesOriginales, long bytesComprimidos,
+                 double tasaCompresion, double tiempoCompresionMs, int umbralBytes, long aciertosCache,
+                 long fallosCache, double tasaAciertosCache, long entradasCache, long bytesCache,
+                 long bytesMaximosCache) {
+            this.respuestasComprimidas = respuestasComprimidas;
+            this.respuestasBajoUmbral = respuestasBajoUmbral;
+            this.bytesOriginales = bytesOriginales;
+            this.bytesComprimidos = bytesComprimidos;
+            this.tasaCompresion = tasaCompresion;
+            this.tiempoCompresionMs = tiempoCompresionMs;
+            this.umbralBytes = umbralBytes;
+            this.aciertosCache = aciertosCache;
+            this.fallosCache = fallosCache;
+            this.tasaAciertosCache = tasaAciertosCache;
+            this.entradasCache = entradasCache;
+            this.bytesCache = bytesCache;
+            this.bytesMaximosCache = bytesMaximosCache;
+        }
+
+        public long getRespuestasComprimidas() {
+            return respuestasComprimidas;
+        }
+
+        public long getRespuestasBajoUmbral() {
+            return respuestasBajoUmbral;
+        }
+
+        public long getBytesOriginales() {
+            return bytesOriginales;
+        }
+
+        public long getBytesComprimidos() {
+            return bytesComprimidos;
+        }
+
+        public double getTasaCompresion() {
+            return tasaCompresion;
+        }
+
+        public double getTiempoCompresionMs() {
+            return tiempoCompresionMs;
+        }
+
+        public int getUmbralBytes() {
+            return umbralBytes;
+        }
+
+        public long getAciertosCache() {
+            return aciertosCache;
+        }
+
+        public long getFallosCache() {
+            return fallosCache;
+        }
+
+        public double getTasaAciertosCache() {
+            return tasaAciertosCache;
+        }
+
+        public long getEntradasCache() {
+            return entradasCache;
+        }
+
+        public long getBytesCache() {
+            return bytesCache;
+        }
+
+        public long getBytesMaximosCache() {
+            return bytesMaximosCache;
+        }
+    }
+}
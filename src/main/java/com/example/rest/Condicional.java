@@ -0,0 +1,68 @@
+package com.example.rest;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Variant;
+
+import java.util.List;
+
+/**
+ * Utilidades para GET condicionales con ETag.
+ *
+ * Los repositorios asignan a cada entidad (y a algunas colecciones) una versión que crece
+ * en cada escritura. El ETag se arma con esa versión, sin serializar nada: si coincide con
+ * If-None-Match la respuesta es 304 Not Modified sin cuerpo.
+ *
+ * Las versiones se reinician con el proceso, así que el ETag incluye un identificador
+ * de la instancia para que un ETag anterior a un reinicio nunca vuelva a coincidir.
+ *
+ * La versión debe leerse antes que los datos: si una escritura ocurre entre ambas lecturas,
+ * el cliente recibe datos nuevos con un ETag viejo y simplemente los vuelve a pedir.
+ *
+ * Cada representación (JSON, CBOR, Smile) tiene su propio ETag: los bytes son distintos, así que
+ * un ETag fuerte no puede compartirse entre formatos. La negociación agrega además Vary: Accept.
+ */
+public final class Condicional {
+    private static final String INSTANCIA = Long.toString(System.currentTimeMillis(), 36);
+    private static final List<Variant> REPRESENTACIONES = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE,
+            FormatosBinarios.APPLICATION_CBOR_TYPE, FormatosBinarios.APPLICATION_SMILE_TYPE).build();
+
+    private Condicional() {
+    }
+
+    /**
+     * ETag fuerte a partir de una o más versiones, para la representación que acepta el cliente.
+     */
+    public static EntityTag etiqueta(Request request, long... versiones) {
+        StringBuilder valor = new StringBuilder(INSTANCIA);
+        for (long version : versiones) {
+            valor.append('-').append(Long.toString(version, 36));
+        }
+        Variant variante = request.selectVariant(REPRESENTACIONES);
+        if (variante != null && !MediaType.APPLICATION_JSON_TYPE.equals(variante.getMediaType())) {
+            valor.append('-').append(variante.getMediaType().getSubtype());
+        }
+        return new EntityTag(valor.toString());
+    }
+
+    /**
+     * Evalúa If-None-Match contra el ETag.
+     * @return builder de 304 si el cliente ya tiene esta versión, o null si hay que enviar el cuerpo
+     */
+    public static Response.ResponseBuilder noModificado(Request request, EntityTag etiqueta) {
+        return request.evaluatePreconditions(etiqueta);
+    }
+
+    /**
+     * 200 con el ETag, o 304 sin cuerpo si el cliente ya tiene esta versión.
+     */
+    public static Response.ResponseBuilder ok(Request request, EntityTag etiqueta, Object entidad) {
+        Response.ResponseBuilder noModificado = noModificado(request, etiqueta);
+        if (noModificado != null) {
+            return noModificado;
+        }
+        return Response.ok(entidad).tag(etiqueta);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.rest;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador de likes de una publicación, seguro para incrementos concurrentes y sin bloqueos.
+ *
+ * Los likes se acumulan en un LongAdder (celdas repartidas entre hilos, sin una única
+ * línea de caché disputada) y los "quitar like" en un AtomicLong aparte. El valor es
+ * sumados - restados y nunca es negativo: un decremento solo se aplica si restados
+ * sigue siendo menor que sumados, y sumados solo crece.
+ *
+ * En modo por lotes la lectura devuelve el último valor consolidado, que el repositorio
+ * actualiza periódicamente; así las lecturas no recorren las celdas del LongAdder.
+ */
+public class ContadorLikes {
+    private final LongAdder sumados = new LongAdder();
+    private final AtomicLong restados = new AtomicLong();
+    private final boolean enLote;
+    private final AtomicBoolean pendiente = new AtomicBoolean();
+    private volatile long publicado;
+
+    ContadorLikes(long inicial, boolean enLote) {
+        this.enLote = enLote;
+        this.sumados.add(Math.max(0, inicial));
+        this.publicado = Math.max(0, inicial);
+    }
+
+    /**
+     * Suma un like.
+     */
+    void incrementar() {
+        sumados.increment();
+    }
+
+    /**
+     * Quita un like si el contador es mayor que cero.
+     * @return true si se quitó, false si ya estaba en cero
+     */
+    boolean decrementar() {
+        while (true) {
+            long actuales = restados.get();
+            if (actuales >= sumados.sum()) {
+                return false;
+            }
+            if (restados.compareAndSet(actuales, actuales + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Valor visible: exacto, o el último consolidado si el contador está en modo por lotes.
+     */
+    public long valor() {
+        return enLote ? publicado : valorExacto();
+    }
+
+    /**
+     * Valor exacto en este momento.
+     */
+    public long valorExacto() {
+        // Leer restados antes que sumados garantiza un resultado no negativo
+        long quitados = restados.get();
+        return sumados.sum() - quitados;
+    }
+
+    /**
+     * Publica el valor exacto como valor visible (modo por lotes).
+     */
+    void consolidar() {
+        pendiente.set(false);
+        publicado = valorExacto();
+    }
+
+    /**
+     * Marca el contador como pendiente de consolidar.
+     * @return true solo para el primer llamado desde la última consolidación
+     */
+    boolean marcarPendiente() {
+        return !pendiente.get() && pendiente.compareAndSet(false, true);
+    }
+
+    boolean isEnLote() {
+        return enLote;
+    }
+}
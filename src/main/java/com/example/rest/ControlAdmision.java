@@ -0,0 +1,285 @@
+package com.example.rest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.Priority;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.DynamicFeature;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.FeatureContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Control de admisión de las escrituras: los métodos POST, PUT y DELETE de los recursos anotados con
+ * LimiteEscrituras pasan por un filtro que decide antes de leer el cuerpo (sin deserializar nada):
+ *
+ * - Cubetas de fichas por cliente y por ruta: si se agotan, 429 Too Many Requests con Retry-After.
+ *   Cada cubeta es un solo AtomicLong (algoritmo GCRA: guarda el instante en que la cubeta vuelve a
+ *   estar llena) y se actualiza con compareAndSet, sin bloqueos.
+ * - Límite global de escrituras en curso ("admision.escrituras.concurrentes", por defecto 64): por
+ *   encima se responde enseguida 503 Service Unavailable con Retry-After, en lugar de encolar
+ *   peticiones que ocupan hilos y memoria. Las lecturas no cuentan.
+ *
+ * Una petición rechazada no consume fichas: primero se reserva el lugar de la escritura (y se libera si
+ * después una cubeta la rechaza) y la ficha del cliente se devuelve si la rechaza la cubeta de la ruta.
+ *
+ * El cliente se identifica por la dirección remota. Detrás de un proxy de confianza se puede usar un
+ * encabezado ("admision.cliente.encabezado", por ejemplo X-Forwarded-For): se toma su última dirección,
+ * la que agregó el proxy, porque las anteriores las escribe el cliente. Sin proxy no hay que activarlo:
+ * un cliente que cambia el encabezado en cada petición esquivaría su cubeta. Las cubetas de clientes
+ * viven en una caché acotada por ruta ("admision.clientes.max", por defecto 10000) que las descarta
+ * cuando ya se habrían vuelto a llenar, así que olvidarlas no cambia ninguna decisión.
+ */
+@Provider
+public class ControlAdmision implements DynamicFeature {
+    private static final int ESCRITURAS_MAXIMAS = Integer.getInteger("admision.escrituras.concurrentes", 64);
+    private static final long CLIENTES_MAXIMOS = Long.getLong("admision.clientes.max", 10_000);
+    private static final String ENCABEZADO_CLIENTE = System.getProperty("admision.cliente.encabezado");
+    private static final long NANOS_POR_SEGUNDO = 1_000_000_000L;
+
+    private static final AtomicInteger enCurso = new AtomicInteger();
+    private static final LongAdder rechazosCliente = new LongAdder();
+    private static final LongAdder rechazosRuta = new LongAdder();
+    private static final LongAdder rechazosConcurrencia = new LongAdder();
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext contexto) {
+        Class<?> recurso = resourceInfo.getResourceClass();
+        Method metodo = resourceInfo.getResourceMethod();
+        LimiteEscrituras limite = recurso.getAnnotation(LimiteEscrituras.class);
+        if (limite == null || !esEscritura(metodo)) {
+            return;
+        }
+        String prefijo = "admision." + recurso.getSimpleName() + ".";
+        contexto.register(new Filtro(
+                valor(prefijo + "porCliente", limite.porCliente()), (int) valor(prefijo + "rafagaCliente", limite.rafagaCliente()),
+                valor(prefijo + "porRuta", limite.porRuta()), (int) valor(prefijo + "rafagaRuta", limite.rafagaRuta())));
+    }
+
+    private static boolean esEscritura(Method metodo) {
+        return metodo.isAnnotationPresent(POST.class) || metodo.isAnnotationPresent(PUT.class)
+                || metodo.isAnnotationPresent(DELETE.class);
+    }
+
+    private static double valor(String propiedad, double porDefecto) {
+        String valor = System.getProperty(propiedad);
+        return valor != null ? Double.parseDouble(valor) : porDefecto;
+    }
+
+    /**
+     * Métricas actuales del control de admisión.
+     */
+    public static Metricas metricas() {
+        return new Metricas(rechazosCliente.sum(), rechazosRuta.sum(), rechazosConcurrencia.sum(),
+                enCurso.get(), ESCRITURAS_MAXIMAS);
+    }
+
+    /**
+     * Filtro de un método de escritura, con la cubeta de su ruta y las de sus clientes.
+     * Corre antes que los demás filtros de usuario; el de salida libera el lugar de la escritura.
+     */
+    @Priority(Priorities.AUTHENTICATION)
+    public static class Filtro implements ContainerRequestFilter, ContainerResponseFilter {
+        private static final String ADMITIDA = Filtro.class.getName() + ".admitida";
+
+        private final Cubeta ruta;
+        private final Cache<String, Cubeta> clientes;
+        private final double porCliente;
+        private final int rafagaCliente;
+
+        @Context
+        private HttpServletRequest servlet;
+
+        Filtro(double porCliente, int rafagaCliente, double porRuta, int rafagaRuta) {
+            this.porCliente = porCliente;
+            this.rafagaCliente = rafagaCliente;
+            this.ruta = porRuta > 0 ? new Cubeta(porRuta, rafagaRuta) : null;
+            this.clientes = porCliente > 0
+                    ? Caffeine.newBuilder()
+                            .maximumSize(CLIENTES_MAXIMOS)
+                            .expireAfterAccess(Duration.ofNanos(Cubeta.nanosParaLlenarse(porCliente, rafagaCliente)))
+                            .build()
+                    : null;
+        }
+
+        @Override
+        public void filter(ContainerRequestContext peticion) {
+            // El lugar se reserva primero porque es lo único que se puede devolver exacto
+            if (!reservarLugar()) {
+                rechazosConcurrencia.increment();
+                peticion.abortWith(rechazo(503, NANOS_POR_SEGUNDO, "Servicio saturado; reintentar más tarde"));
+                return;
+            }
+            long ahora = System.nanoTime();
+            Cubeta cubeta = null;
+            if (clientes != null) {
+                cubeta = clientes.get(cliente(peticion), k -> new Cubeta(porCliente, rafagaCliente));
+                long espera = cubeta.tomar(ahora);
+                if (espera > 0) {
+                    enCurso.decrementAndGet();
+                    rechazosCliente.increment();
+                    peticion.abortWith(rechazo(429, espera, "Demasiadas escrituras de este cliente; reintentar más tarde"));
+                    return;
+                }
+            }
+            if (ruta != null) {
+                long espera = ruta.tomar(ahora);
+                if (espera > 0) {
+                    if (cubeta != null) {
+                        cubeta.devolver();
+                    }
+                    enCurso.decrementAndGet();
+                    rechazosRuta.increment();
+                    peticion.abortWith(rechazo(429, espera, "Demasiadas escrituras en este recurso; reintentar más tarde"));
+                    return;
+                }
+            }
+            peticion.setProperty(ADMITIDA, Boolean.TRUE);
+        }
+
+        @Override
+        public void filter(ContainerRequestContext peticion, ContainerResponseContext respuesta) {
+            if (peticion.getProperty(ADMITIDA) != null) {
+                peticion.removeProperty(ADMITIDA);
+                enCurso.decrementAndGet();
+            }
+        }
+
+        private static boolean reservarLugar() {
+            int actual;
+            do {
+                actual = enCurso.get();
+                if (actual >= ESCRITURAS_MAXIMAS) {
+                    return false;
+                }
+            } while (!enCurso.compareAndSet(actual, actual + 1));
+            return true;
+        }
+
+        private String cliente(ContainerRequestContext peticion) {
+            String encabezado = ENCABEZADO_CLIENTE != null ? peticion.getHeaderString(ENCABEZADO_CLIENTE) : null;
+            if (encabezado != null && !encabezado.isBlank()) {
+                // La última dirección es la que agregó el proxy de confianza
+                return encabezado.substring(encabezado.lastIndexOf(',') + 1).trim();
+            }
+            try {
+                return servlet != null ? servlet.getRemoteAddr() : "";
+            } catch (IllegalStateException e) {
+                return ""; // Fuera de un contenedor de servlets (Grizzly): todos comparten la cubeta
+            }
+        }
+
+        private static Response rechazo(int estado, long esperaNanos, String mensaje) {
+            long segundos = Math.max(1, (esperaNanos + NANOS_POR_SEGUNDO - 1) / NANOS_POR_SEGUNDO);
+            return Response.status(estado)
+                    .header(HttpHeaders.RETRY_AFTER, segundos)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .entity(new UsuarioResource.ErrorResponse(mensaje))
+                    .build();
+        }
+    }
+
+    /**
+     * Cubeta de fichas con GCRA: "lleno" es el instante (System.nanoTime) a partir del cual la cubeta
+     * vuelve a estar llena. Tomar una ficha lo corre un intervalo; si queda más de una ráfaga por
+     * delante del reloj, no hay fichas.
+     */
+    static final class Cubeta {
+        private final long intervalo;
+        private final long tolerancia;
+        private final AtomicLong lleno;
+
+        Cubeta(double porSegundo, int rafaga) {
+            this.intervalo = Math.max(1, (long) (NANOS_POR_SEGUNDO / porSegundo));
+            this.tolerancia = intervalo * Math.max(1, rafaga);
+            this.lleno = new AtomicLong(System.nanoTime());
+        }
+
+        static long nanosParaLlenarse(double porSegundo, int rafaga) {
+            return Math.max(1, (long) (NANOS_POR_SEGUNDO / porSegundo)) * Math.max(1, rafaga);
+        }
+
+        /**
+         * Toma una ficha.
+         * @return 0 si la había, o los nanosegundos hasta que haya una
+         */
+        long tomar(long ahora) {
+            while (true) {
+                long actual = lleno.get();
+                long nuevo = Math.max(actual, ahora) + intervalo;
+                long espera = nuevo - ahora - tolerancia;
+                if (espera > 0) {
+                    return espera;
+                }
+                if (lleno.compareAndSet(actual, nuevo)) {
+                    return 0;
+                }
+            }
+        }
+
+        /**
+         * Devuelve una ficha tomada para una petición que después se rechazó por otro motivo.
+         */
+        void devolver() {
+            lleno.addAndGet(-intervalo);
+        }
+    }
+
+    /**
+     * Métricas expuestas en /api/metrics.
+     */
+    public static class Metricas {
+        private final long rechazosCliente;
+        private final long rechazosRuta;
+        private final long rechazosConcurrencia;
+        private final int escriturasEnCurso;
+        private final int escriturasMaximas;
+
+        Metricas(long rechazosCliente, long rechazosRuta, long rechazosConcurrencia,
+                 int escriturasEnCurso, int escriturasMaximas) {
+            this.rechazosCliente = rechazosCliente;
+            this.rechazosRuta = rechazosRuta;
+            this.rechazosConcurrencia = rechazosConcurrencia;
+            this.escriturasEnCurso = escriturasEnCurso;
+            this.escriturasMaximas = escriturasMaximas;
+        }
+
+        public long getRechazosCliente() {
+            return rechazosCliente;
+        }
+
+        public long getRechazosRuta() {
+            return rechazosRuta;
+        }
+
+        public long getRechazosConcurrencia() {
+            return rechazosConcurrencia;
+        }
+
+        public int getEscriturasEnCurso() {
+            return escriturasEnCurso;
+        }
+
+        public int getEscriturasMaximas() {
+            return escriturasMaximas;
+        }
+    }
+}
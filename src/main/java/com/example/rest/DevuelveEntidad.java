@@ -0,0 +1,21 @@
+package com.example.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Entidad que devuelve un GET (sola, en lista, en página o en streaming). ProyeccionCampos valida
+ * ?fields= contra sus propiedades; un GET sin esta anotación no admite el parámetro.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DevuelveEntidad {
+
+    /** Clase de las entidades de la respuesta. */
+    Class<?> value();
+
+    /** Clase de las entidades cuando la petición trae ?completo=true (Void si no cambia). */
+    Class<?> completo() default Void.class;
+}
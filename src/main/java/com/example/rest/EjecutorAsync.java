@@ -0,0 +1,49 @@
+package com.example.rest;
+
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.Response;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta los métodos de los recursos de forma asíncrona.
+ *
+ * Cada petición se suspende (@Suspended AsyncResponse) y se atiende en un hilo virtual:
+ * el hilo del contenedor queda libre enseguida y un recurso que se bloquea (E/S, espera)
+ * no retiene un hilo de plataforma.
+ *
+ * La propiedad de sistema "async.modo" elige el modo:
+ * - "virtual" (por defecto): un hilo virtual por petición
+ * - "directo": se atiende en el mismo hilo del contenedor, como un método síncrono
+ *   (modelo de un hilo por petición; sirve de referencia para comparar)
+ */
+public final class EjecutorAsync {
+    private static final boolean DIRECTO = "directo".equals(System.getProperty("async.modo", "virtual"));
+    private static final ExecutorService HILOS_VIRTUALES = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("peticion-", 0).factory());
+
+    private EjecutorAsync() {
+    }
+
+    /**
+     * Atiende la petición y reanuda la respuesta suspendida con el resultado.
+     * Una excepción no capturada por la tarea se entrega a Jersey (500).
+     */
+    public static void ejecutar(AsyncResponse async, Supplier<Response> tarea) {
+        if (DIRECTO) {
+            atender(async, tarea);
+        } else {
+            HILOS_VIRTUALES.execute(() -> atender(async, tarea));
+        }
+    }
+
+    private static void atender(AsyncResponse async, Supplier<Response> tarea) {
+        try {
+            async.resume(tarea.get());
+        } catch (Throwable e) {
+            async.resume(e);
+        }
+    }
+}
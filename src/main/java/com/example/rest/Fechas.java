@@ -0,0 +1,53 @@
+package com.example.rest;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Conversión entre las fechas internas (milisegundos desde epoch) y el formato
+ * de texto que expone la API ("yyyy-MM-dd HH:mm:ss", hora local del servidor).
+ * Las entidades guardan un long y solo formatean al serializarse.
+ */
+public final class Fechas {
+    public static final String PATRON = "yyyy-MM-dd HH:mm:ss";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(PATRON);
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private Fechas() {
+    }
+
+    /**
+     * Instante actual en milisegundos desde epoch.
+     */
+    public static long ahora() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Formatea milisegundos desde epoch; 0 representa una fecha sin asignar (null).
+     */
+    public static String formatear(long epochMillis) {
+        if (epochMillis == 0) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZONA).format(FORMATTER);
+    }
+
+    /**
+     * Interpreta una fecha en el formato de la API. Un texto nulo o inválido se
+     * toma como fecha sin asignar (0): los repositorios siempre fijan la fecha al crear.
+     */
+    public static long parsear(String fecha) {
+        if (fecha == null || fecha.isEmpty()) {
+            return 0;
+        }
+        try {
+            return LocalDateTime.parse(fecha, FORMATTER).atZone(ZONA).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
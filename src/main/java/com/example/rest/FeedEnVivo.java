@@ -0,0 +1,385 @@
+package com.example.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feed de amigos en vivo por Server-Sent Events (GET /api/publicaciones/amigos/{id}/stream).
+ *
+ * - Cada publicación nueva se ofrece a los suscriptores que son amigos del autor, como un Evento
+ *   compartido (el JSON se arma una sola vez). Ofrecer no bloquea: el evento entra en el buffer
+ *   acotado del suscriptor ("sse.buffer", por defecto 64).
+ * - Un suscriptor solo ocupa un hilo (virtual) mientras tiene eventos pendientes de enviar: las
+ *   conexiones inactivas no tienen hilo. Si el cliente no lee al ritmo de las publicaciones y el
+ *   buffer se llena, se descartan las más antiguas y antes de las siguientes se envía un evento
+ *   "desfase" para que el cliente recargue el feed con GET.
+ * - Cada "sse.latido.s" segundos (por defecto 15) se envía un comentario a todas las conexiones:
+ *   las mantiene abiertas a través de proxies y detecta los clientes que se fueron.
+ * - El ID de cada evento es el de la publicación. Al reconectar con Last-Event-ID se reenvían
+ *   desde el feed las publicaciones posteriores, hasta "sse.reenvio.max" (por defecto 256).
+ *
+ * Por encima de "sse.suscripciones.max" conexiones (por defecto 50000) las nuevas se rechazan.
+ */
+public class FeedEnVivo {
+    private static final int CAPACIDAD_BUFFER = Integer.getInteger("sse.buffer", 64);
+    private static final int REENVIO_MAXIMO = Integer.getInteger("sse.reenvio.max", 256);
+    private static final int SUSCRIPCIONES_MAXIMAS = Integer.getInteger("sse.suscripciones.max", 50_000);
+    private static final long LATIDO_SEGUNDOS = Long.getLong("sse.latido.s", 15L);
+
+    private static final FeedEnVivo instance = new FeedEnVivo();
+
+    private final Map<Long, Set<Suscriptor>> suscriptores = new ConcurrentHashMap<>();
+    private final AtomicInteger conectados = new AtomicInteger();
+    private final LongAdder enviados = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+    private final ExecutorService envios = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("sse-", 0).factory());
+
+    private FeedEnVivo() {
+        ScheduledExecutorService latidos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "sse-latidos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        latidos.scheduleWithFixedDelay(this::latir, LATIDO_SEGUNDOS, LATIDO_SEGUNDOS, TimeUnit.SECONDS);
+    }
+
+    public static FeedEnVivo getInstance() {
+        return instance;
+    }
+
+    /**
+     * Suscribe una conexión al feed en vivo de un usuario.
+     * @param ultimoId ID del último evento recibido (Last-Event-ID), o null si es una conexión nueva
+     * @return false si se alcanzó el máximo de suscripciones (la conexión no se tocó)
+     */
+    public boolean suscribir(Long usuarioId, Long ultimoId, SseEventSink sink, Sse sse) {
+        int actual;
+        do {
+            actual = conectados.get();
+            if (actual >= SUSCRIPCIONES_MAXIMAS) {
+                rechazados.increment();
+                return false;
+            }
+        } while (!conectados.compareAndSet(actual, actual + 1));
+
+        // Se registra antes de leer el feed para el reenvío: lo que se publique mientras tanto
+        // queda en el buffer y se envía después del reenvío, sin duplicados. Se agrega dentro de
+        // compute: así un quitar() concurrente de la última conexión del usuario no puede borrar
+        // el conjunto entre que se obtiene y se agrega (el suscriptor quedaría huérfano)
+        Suscriptor suscriptor = new Suscriptor(usuarioId, ultimoId, sink, sse);
+        suscriptores.compute(usuarioId, (k, conexiones) -> {
+            Set<Suscriptor> resultado = conexiones != null ? conexiones : ConcurrentHashMap.newKeySet();
+            resultado.add(suscriptor);
+            return resultado;
+        });
+        envios.execute(suscriptor::enviar);
+        return true;
+    }
+
+    /**
+     * Entrega una publicación recién creada a los suscriptores amigos del autor.
+     */
+    public void publicacionCreada(Publicacion publicacion) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        Evento evento = new Evento(publicacion.instantanea());
+        Set<Long> amigos = AmistadRepository.getInstance().amigosDe(publicacion.getUsuarioId());
+        // Se recorre el conjunto más chico: los amigos del autor o los usuarios conectados
+        if (suscriptores.size() < amigos.size()) {
+            for (Map.Entry<Long, Set<Suscriptor>> entrada : suscriptores.entrySet()) {
+                if (amigos.contains(entrada.getKey())) {
+                    ofrecer(entrada.getValue(), evento);
+                }
+            }
+        } else {
+            for (Long amigoId : amigos) {
+                Set<Suscriptor> conexiones = suscriptores.get(amigoId);
+                if (conexiones != null) {
+                    ofrecer(conexiones, evento);
+                }
+            }
+        }
+    }
+
+    private void ofrecer(Set<Suscriptor> conexiones, Evento evento) {
+        for (Suscriptor suscriptor : conexiones) {
+            if (suscriptor.ofrecer(evento)) {
+                envios.execute(suscriptor::enviar);
+            }
+        }
+    }
+
+    private void latir() {
+        for (Set<Suscriptor> conexiones : suscriptores.values()) {
+            for (Suscriptor suscriptor : conexiones) {
+                if (suscriptor.marcarLatido()) {
+                    envios.execute(suscriptor::enviar);
+                }
+            }
+        }
+    }
+
+    private void quitar(Suscriptor suscriptor) {
+        suscriptores.computeIfPresent(suscriptor.usuarioId, (k, conexiones) -> {
+            conexiones.remove(suscriptor);
+            return conexiones.isEmpty() ? null : conexiones;
+        });
+        conectados.decrementAndGet();
+    }
+
+    /**
+     * Métricas actuales del feed en vivo.
+     */
+    public Metricas metricas() {
+        return new Metricas(conectados.get(), enviados.sum(), descartados.sum(), rechazados.sum());
+    }
+
+    /**
+     * Publicación a enviar, compartida por todos los suscriptores que la reciben.
+     */
+    private static final class Evento {
+        private final Publicacion publicacion;
+        private volatile String json;
+
+        Evento(Publicacion publicacion) {
+            this.publicacion = publicacion;
+        }
+
+        long id() {
+            return publicacion.getId();
+        }
+
+        String json() throws JsonProcessingException {
+            String valor = json;
+            if (valor == null) {
+                valor = MapeadorJson.escritor(Publicacion.class).writeValueAsString(publicacion);
+                json = valor;
+            }
+            return valor;
+        }
+    }
+
+    /**
+     * Una conexión SSE con su buffer circular de eventos pendientes. El estado se protege con el
+     * monitor del suscriptor; los envíos se hacen fuera de él, en un solo hilo a la vez ("enviando").
+     */
+    private final class Suscriptor {
+        private final Long usuarioId;
+        private final SseEventSink sink;
+        private final Sse sse;
+        private final Evento[] pendientes = new Evento[CAPACIDAD_BUFFER];
+        private int inicio;
+        private int cantidad;
+        private int descartadas;
+        private boolean latido;
+        private boolean enviando = true; // El primer envío (reenvío) ya está programado
+        private Long reenviarDesde;
+        private long ultimoReenviado = Long.MIN_VALUE;
+
+        Suscriptor(Long usuarioId, Long ultimoId, SseEventSink sink, Sse sse) {
+            this.usuarioId = usuarioId;
+            this.reenviarDesde = ultimoId;
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        /**
+         * Agrega el evento al buffer, descartando el más antiguo si está lleno.
+         * @return true si hay que programar un envío
+         */
+        synchronized boolean ofrecer(Evento evento) {
+            if (cantidad == pendientes.length) {
+                pendientes[inicio] = null;
+                inicio = (inicio + 1) % pendientes.length;
+                cantidad--;
+                descartadas++;
+                descartados.increment();
+            }
+            pendientes[(inicio + cantidad) % pendientes.length] = evento;
+            cantidad++;
+            return programar();
+        }
+
+        synchronized boolean marcarLatido() {
+            latido = true;
+            return programar();
+        }
+
+        private boolean programar() {
+            if (enviando) {
+                return false;
+            }
+            enviando = true;
+            return true;
+        }
+
+        /**
+         * Envía lo pendiente hasta vaciar el buffer; corre en un hilo virtual.
+         */
+        void enviar() {
+            try {
+                if (reenviarDesde != null) {
+                    reenviar(reenviarDesde);
+                    reenviarDesde = null;
+                }
+                while (true) {
+                    Evento[] lote;
+                    boolean desfase;
+                    boolean conLatido;
+                    synchronized (this) {
+                        if (cantidad == 0 && descartadas == 0 && !latido) {
+                            enviando = false;
+                            return;
+                        }
+                        lote = new Evento[cantidad];
+                        for (int i = 0; i < cantidad; i++) {
+                            lote[i] = pendientes[(inicio + i) % pendientes.length];
+                            pendientes[(inicio + i) % pendientes.length] = null;
+                        }
+                        inicio = 0;
+                        cantidad = 0;
+                        desfase = descartadas > 0;
+                        descartadas = 0;
+                        conLatido = latido;
+                        latido = false;
+                    }
+                    if (desfase) {
+                        escribir(desfase());
+                    }
+                    for (Evento evento : lote) {
+                        if (evento.id() > ultimoReenviado) {
+                            escribir(publicacion(evento));
+                        }
+                    }
+                    if (conLatido && lote.length == 0 && !desfase) {
+                        escribir(sse.newEventBuilder().comment("latido").build());
+                    }
+                }
+            } catch (Exception e) {
+                // El cliente se desconectó (o el evento no se pudo escribir): se cierra la suscripción
+                cerrar();
+            }
+        }
+
+        /**
+         * Reenvía, de la más antigua a la más reciente, las publicaciones del feed posteriores a ultimoId.
+         */
+        private void reenviar(long ultimoId) throws Exception {
+            List<Publicacion> posteriores = new ArrayList<>();
+            Iterator<Publicacion> feed = FeedRepository.getInstance()
+                    .obtener(usuarioId, REENVIO_MAXIMO + 1, null).getElementos().iterator();
+            while (feed.hasNext()) {
+                Publicacion publicacion = feed.next();
+                if (publicacion.getId() <= ultimoId) {
+                    break;
+                }
+                posteriores.add(publicacion);
+            }
+            if (posteriores.size() > REENVIO_MAXIMO) {
+                posteriores.remove(posteriores.size() - 1);
+                escribir(desfase());
+            }
+            for (int i = posteriores.size() - 1; i >= 0; i--) {
+                Evento evento = new Evento(posteriores.get(i).instantanea());
+                escribir(publicacion(evento));
+                ultimoReenviado = evento.id();
+            }
+        }
+
+        private OutboundSseEvent publicacion(Evento evento) throws JsonProcessingException {
+            return sse.newEventBuilder()
+                    .id(String.valueOf(evento.id()))
+                    .name("publicacion")
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(String.class, evento.json())
+                    .build();
+        }
+
+        private OutboundSseEvent desfase() {
+            return sse.newEventBuilder()
+                    .name("desfase")
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(String.class, "{\"mensaje\":\"Se omitieron publicaciones; recargar el feed con GET "
+                            + "/api/publicaciones/amigos/" + usuarioId + "\"}")
+                    .build();
+        }
+
+        private void escribir(OutboundSseEvent evento) {
+            if (sink.isClosed()) {
+                throw new IllegalStateException("Conexión cerrada");
+            }
+            sink.send(evento).toCompletableFuture().join();
+            if (evento.getName() != null) {
+                enviados.increment();
+            }
+        }
+
+        private void cerrar() {
+            synchronized (this) {
+                // Queda "enviando" para siempre: ningún evento posterior programa otro envío
+                enviando = true;
+                cantidad = 0;
+                Arrays.fill(pendientes, null);
+            }
+            try {
+                sink.close();
+            } catch (Exception e) {
+                // Ya estaba cerrada
+            }
+            quitar(this);
+        }
+    }
+
+    /**
+     * Métricas expuestas en /api/metrics.
+     */
+    public static class Metricas {
+        private final int conectados;
+        private final long enviados;
+        private final long descartados;
+        private final long rechazados;
+
+        Metricas(int conectados, long enviados, long descartados, long rechazados) {
+            this.conectados = conectados;
+            this.enviados = enviados;
+            this.descartados = descartados;
+            this.rechazados = rechazados;
+        }
+
+        public int getConectados() {
+            return conectados;
+        }
+
+        public long getEnviados() {
+            return enviados;
+        }
+
+        public long getDescartados() {
+            return descartados;
+        }
+
+        public long getRechazados() {
+            return rechazados;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.rest;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Motor del feed de publicaciones de amigos (modelo híbrido push/pull).
+ *
+ * - Autores comunes: al publicar, el ID se entrega (push) en la bandeja de cada amigo.
+ *   Las bandejas están ordenadas de más reciente a más antigua y acotadas a CAPACIDAD_BANDEJA.
+ * - Autores populares (más de UMBRAL_AUTOR_POPULAR amigos): no se hace fan-out; sus
+ *   publicaciones se leen (pull) de su índice por autor al armar el feed.
+ *
+ * La lectura combina la bandeja y los índices de los amigos populares con un merge de k vías,
+ * por lo que armar una página cuesta O((página + k) log k).
+ * Un autor que pasa a ser popular queda marcado como tal, para que ninguna de sus
+ * publicaciones quede fuera de las bandejas y del pull a la vez.
+ */
+public class FeedRepository {
+    public static final int CAPACIDAD_BANDEJA = 1000;
+    public static final int UMBRAL_AUTOR_POPULAR = 1000;
+
+    private static final FeedRepository instance = new FeedRepository();
+    private final MetricasServicio.Operaciones operaciones = MetricasServicio.getInstance().repositorio("feed");
+    private final Map<Long, Bandeja> bandejas = new ConcurrentHashMap<>();
+    private final Set<Long> autoresPopulares = ConcurrentHashMap.newKeySet();
+
+    private FeedRepository() {
+    }
+
+    public static FeedRepository getInstance() {
+        return instance;
+    }
+
+    /**
+     * Registra una publicación nueva: la entrega en las bandejas de los amigos del autor,
+     * salvo que el autor sea popular.
+     */
+    public void publicacionCreada(Publicacion publicacion) {
+        Long autorId = publicacion.getUsuarioId();
+        if (esPopular(autorId)) {
+            return;
+        }
+        for (Long amigoId : AmistadRepository.getInstance().amigosDe(autorId)) {
+            bandejaDe(amigoId).agregar(publicacion.getId());
+        }
+    }
+
+    /**
+     * Al crearse una amistad, cada usuario recibe en su bandeja las publicaciones
+     * recientes del otro (si el otro no es popular; en ese caso se leen por pull).
+     */
+    public void amistadCreada(Long usuarioId1, Long usuarioId2) {
+        copiarRecientes(usuarioId2, usuarioId1);
+        copiarRecientes(usuarioId1, usuarioId2);
+        // El nuevo amigo puede llevar al autor por encima del umbral
+        esPopular(usuarioId1);
+        esPopular(usuarioId2);
+    }
+
+    /**
+     * Al eliminarse una amistad, se quitan de cada bandeja las publicaciones del otro usuario.
+     */
+    public void amistadEliminada(Long usuarioId1, Long usuarioId2) {
+        quitarDeAutor(usuarioId1, usuarioId2);
+        quitarDeAutor(usuarioId2, usuarioId1);
+    }
+
+    /**
+     * Obtiene una página del feed de un usuario, más recientes primero.
+     * @param usuarioId Usuario lector
+     * @param limite Cantidad máxima de publicaciones
+     * @param antesDeId Si no es null, solo publicaciones con ID menor (página siguiente)
+     */
+    public Pagina<Publicacion> obtener(Long usuarioId, int limite, Long antesDeId) {
+        operaciones.contar("obtener");
+        List<Publicacion> resultado = new ArrayList<>();
+        if (limite <= 0) {
+            return new Pagina<>(resultado, null);
+        }
+        AmistadRepository amistadRepo = AmistadRepository.getInstance();
+        PublicacionRepository publicacionRepo = PublicacionRepository.getInstance();
+
+        PriorityQueue<Fuente> fuentes = new PriorityQueue<>();
+        Bandeja bandeja = bandejas.get(usuarioId);
+        if (bandeja != null) {
+            agregarFuente(fuentes, bandeja.ids, antesDeId);
+        }
+        for (Long popularId : amigosPopulares(usuarioId, amistadRepo)) {
+            agregarFuente(fuentes, publicacionRepo.idsPorUsuario(popularId), antesDeId);
+        }
+
+        long ultimoId = Long.MAX_VALUE;
+        while (!fuentes.isEmpty()) {
+            Fuente fuente = fuentes.poll();
+            long id = fuente.actual;
+            if (fuente.avanzar()) {
+                fuentes.add(fuente);
+            }
+            // Una publicación puede llegar por push y por pull a la vez: se emite una sola vez
+            if (id == ultimoId) {
+                continue;
+            }
+            ultimoId = id;
+            Publicacion publicacion = publicacionRepo.buscarPorId(id).orElse(null);
+            if (publicacion != null && amistadRepo.sonAmigos(usuarioId, publicacion.getUsuarioId())) {
+                if (resultado.size() == limite) {
+                    // Hay al menos una publicación más: la página siguiente empieza después de la última
+                    return new Pagina<>(resultado, resultado.get(limite - 1).getId());
+                }
+                resultado.add(publicacion);
+            }
+        }
+        return new Pagina<>(resultado, null);
+    }
+
+    private boolean esPopular(Long usuarioId) {
+        if (autoresPopulares.contains(usuarioId)) {
+            return true;
+        }
+        if (AmistadRepository.getInstance().contarAmigos(usuarioId) > UMBRAL_AUTOR_POPULAR) {
+            autoresPopulares.add(usuarioId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Amigos populares de un usuario: se recorre el conjunto más chico de los dos.
+     */
+    private List<Long> amigosPopulares(Long usuarioId, AmistadRepository amistadRepo) {
+        List<Long> resultado = new ArrayList<>();
+        Set<Long> amigos = amistadRepo.amigosDe(usuarioId);
+        if (autoresPopulares.size() < amigos.size()) {
+            for (Long popularId : autoresPopulares) {
+                if (amigos.contains(popularId)) {
+                    resultado.add(popularId);
+                }
+            }
+        } else {
+            for (Long amigoId : amigos) {
+                if (autoresPopulares.contains(amigoId)) {
+                    resultado.add(amigoId);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private void copiarRecientes(Long autorId, Long lectorId) {
+        if (esPopular(autorId)) {
+            return;
+        }
+        Bandeja bandeja = bandejaDe(lectorId);
+        int copiadas = 0;
+        for (Long id : PublicacionRepository.getInstance().idsPorUsuario(autorId)) {
+            if (copiadas++ >= CAPACIDAD_BANDEJA) {
+                break;
+            }
+            bandeja.agregar(id);
+        }
+    }
+
+    private void quitarDeAutor(Long lectorId, Long autorId) {
+        Bandeja bandeja = bandejas.get(lectorId);
+        if (bandeja == null) {
+            return;
+        }
+        PublicacionRepository publicacionRepo = PublicacionRepository.getInstance();
+        for (Long id : bandeja.ids) {
+            Optional<Publicacion> publicacion = publicacionRepo.buscarPorId(id);
+            if (!publicacion.isPresent() || publicacion.get().getUsuarioId().equals(autorId)) {
+                bandeja.quitar(id);
+            }
+        }
+    }
+
+    private Bandeja bandejaDe(Long usuarioId) {
+        return bandejas.computeIfAbsent(usuarioId, id -> new Bandeja());
+    }
+
+    private static void agregarFuente(PriorityQueue<Fuente> fuentes, NavigableSet<Long> ids, Long antesDeId) {
+        NavigableSet<Long> desde = antesDeId != null ? ids.tailSet(antesDeId, false) : ids;
+        Fuente fuente = new Fuente(desde.iterator());
+        if (fuente.avanzar()) {
+            fuentes.add(fuente);
+        }
+    }
+
+    /**
+     * Bandeja de entrada acotada de un usuario: IDs de publicaciones, más recientes primero.
+     */
+    private static final class Bandeja {
+        private final ConcurrentSkipListSet<Long> ids = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+        private final AtomicInteger tamaño = new AtomicInteger();
+
+        void agregar(Long id) {
+            if (ids.add(id) && tamaño.incrementAndGet() > CAPACIDAD_BANDEJA) {
+                // Se descarta la más antigua
+                if (ids.pollLast() != null) {
+                    tamaño.decrementAndGet();
+                }
+            }
+        }
+
+        void quitar(Long id) {
+            if (ids.remove(id)) {
+                tamaño.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Iterador descendente de IDs con su elemento actual, ordenado para el merge de k vías.
+     */
+    private static final class Fuente implements Comparable<Fuente> {
+        private final Iterator<Long> iterador;
+        private long actual;
+
+        Fuente(Iterator<Long> iterador) {
+            this.iterador = iterador;
+        }
+
+        boolean avanzar() {
+            if (!iterador.hasNext()) {
+                return false;
+            }
+            actual = iterador.next();
+            return true;
+        }
+
+        @Override
+        public int compareTo(Fuente otra) {
+            return Long.compare(otra.actual, actual); // Mayor ID (más reciente) primero
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Formatos binarios que los recursos producen y consumen además de JSON, elegidos por
+ * Accept / Content-Type:
+ * - CBOR (application/cbor, RFC 8949)
+ * - Smile (application/x-jackson-smile), JSON binario de Jackson
+ *
+ * Los lectores y escritores son los proveedores JAX-RS de Jackson para cada formato; los
+ * ContextResolver de esta clase les entregan un ObjectMapper con los mismos serializadores de
+ * entidades que el JSON (SerializacionEntidades), así el modelo y las validaciones son los mismos.
+ */
+public final class FormatosBinarios {
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+    public static final MediaType APPLICATION_SMILE_TYPE = MediaType.valueOf(APPLICATION_SMILE);
+
+    public static final ObjectMapper CBOR = new CBORMapper()
+            .registerModule(SerializacionEntidades.modulo())
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    public static final ObjectMapper SMILE = new SmileMapper()
+            .registerModule(SerializacionEntidades.modulo())
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    private FormatosBinarios() {
+    }
+
+    /**
+     * ObjectMapper del formato de un tipo de medio: CBOR, Smile o, para cualquier otro, JSON.
+     */
+    public static ObjectMapper mapper(MediaType tipo) {
+        if (tipo != null && APPLICATION_CBOR_TYPE.isCompatible(tipo) && !tipo.isWildcardSubtype()) {
+            return CBOR;
+        }
+        if (tipo != null && APPLICATION_SMILE_TYPE.isCompatible(tipo) && !tipo.isWildcardSubtype()) {
+            return SMILE;
+        }
+        return MapeadorJson.MAPPER;
+    }
+
+    @Provider
+    @Produces(APPLICATION_CBOR)
+    public static class ResolvedorCbor implements ContextResolver<ObjectMapper> {
+        @Override
+        public ObjectMapper getContext(Class<?> tipo) {
+            return CBOR;
+        }
+    }
+
+    @Provider
+    @Produces(APPLICATION_SMILE)
+    public static class ResolvedorSmile implements ContextResolver<ObjectMapper> {
+        @Override
+        public ObjectMapper getContext(Class<?> tipo) {
+            return SMILE;
+        }
+    }
+}
@@ -8,8 +8,8 @@ import jakarta.ws.rs.core.Response;
  * Ejemplo de recurso REST que demuestra diferentes operaciones HTTP.
  */
 @Path("/hello")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
 public class HelloResource {
 
     /**
@@ -0,0 +1,109 @@
+package com.example.rest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin bloqueos, en nanosegundos.
+ *
+ * Cubetas log-lineales: los valores menores a 16 tienen una cubeta cada uno y, de ahí en adelante,
+ * cada potencia de dos se divide en 16 cubetas iguales, así el error relativo de un percentil
+ * es como mucho 1/16 (~6%). Registrar es calcular el índice con un par de operaciones de bits e
+ * incrementar un contador atómico. Son 544 cubetas, hasta el exponente 36: los valores desde
+ * 2^37 ns (~137 s) van a la última cubeta.
+ *
+ * Los percentiles se calculan sobre una lectura de los contadores (no es una foto atómica: una
+ * muestra que llega durante la lectura puede contarse o no) y valen el punto medio de su cubeta.
+ */
+public final class Histograma {
+    private static final int BITS_SUBCUBETA = 4;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int EXPONENTE_MAXIMO = 36;
+    private static final int CUBETAS = (EXPONENTE_MAXIMO - BITS_SUBCUBETA + 2) * SUBCUBETAS;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+    private final LongAdder sumaNanos = new LongAdder();
+
+    /**
+     * Registra una muestra.
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(nanos, 0);
+        cuentas.incrementAndGet(indice(valor));
+        sumaNanos.add(valor);
+    }
+
+    static int indice(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente > EXPONENTE_MAXIMO) {
+            return CUBETAS - 1;
+        }
+        int mantisa = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return (exponente - BITS_SUBCUBETA + 1) * SUBCUBETAS + mantisa;
+    }
+
+    // Punto medio de la cubeta (valor exacto para las cubetas de un solo valor)
+    static long valorDe(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int exponente = indice / SUBCUBETAS + BITS_SUBCUBETA - 1;
+        long ancho = 1L << (exponente - BITS_SUBCUBETA);
+        long desde = (long) (SUBCUBETAS + indice % SUBCUBETAS) * ancho;
+        return desde + ancho / 2;
+    }
+
+    /**
+     * Lectura de los contadores para calcular percentiles, cantidad y suma.
+     */
+    public Lectura leer() {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cuentas.get(i);
+            total += copia[i];
+        }
+        return new Lectura(copia, total, sumaNanos.sum());
+    }
+
+    public static final class Lectura {
+        private final long[] cuentas;
+        private final long cantidad;
+        private final long sumaNanos;
+
+        private Lectura(long[] cuentas, long cantidad, long sumaNanos) {
+            this.cuentas = cuentas;
+            this.cantidad = cantidad;
+            this.sumaNanos = sumaNanos;
+        }
+
+        public long getCantidad() {
+            return cantidad;
+        }
+
+        public long getSumaNanos() {
+            return sumaNanos;
+        }
+
+        /**
+         * Valor por debajo del cual está la fracción q de las muestras (0 si no hay muestras).
+         */
+        public long percentil(double q) {
+            if (cantidad == 0) {
+                return 0;
+            }
+            long rango = Math.max(1, (long) Math.ceil(q * cantidad));
+            long acumulado = 0;
+            for (int i = 0; i < cuentas.length; i++) {
+                acumulado += cuentas[i];
+                if (acumulado >= rango) {
+                    return valorDe(i);
+                }
+            }
+            return valorDe(cuentas.length - 1);
+        }
+    }
+}
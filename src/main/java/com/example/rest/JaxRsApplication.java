@@ -1,5 +1,7 @@
 package com.example.rest;
 
+import com.fasterxml.jackson.jakarta.rs.cbor.JacksonCBORProvider;
+import com.fasterxml.jackson.jakarta.rs.smile.JacksonSmileProvider;
 import jakarta.ws.rs.ApplicationPath;
 import jakarta.ws.rs.core.Application;
 
@@ -13,6 +15,11 @@ import java.util.Set;
 @ApplicationPath("/api")
 public class JaxRsApplication extends Application {
 
+    public JaxRsApplication() {
+        // Con registro de escrituras, reconstruir los repositorios antes de atender peticiones
+        RegistroEscrituras.getInstance().recuperar();
+    }
+
     @Override
     public Set<Class<?>> getClasses() {
         Set<Class<?>> classes = new HashSet<>();
@@ -22,6 +29,24 @@ public class JaxRsApplication extends Application {
         classes.add(AmistadResource.class);
         classes.add(PublicacionResource.class);
         classes.add(ComentarioResource.class);
+        classes.add(MetricasResource.class);
+        // ObjectMapper compartido con los serializadores de las entidades
+        classes.add(MapeadorJson.class);
+        // Formatos binarios: proveedores de Jackson y sus ObjectMapper (ver FormatosBinarios)
+        classes.add(JacksonCBORProvider.class);
+        classes.add(JacksonSmileProvider.class);
+        classes.add(FormatosBinarios.ResolvedorCbor.class);
+        classes.add(FormatosBinarios.ResolvedorSmile.class);
+        classes.add(SalidaStreaming.EscritorArreglo.class);
+        // Campos parciales con ?fields= en todos los GET (ver ProyeccionCampos)
+        classes.add(ProyeccionCampos.class);
+        classes.add(ProyeccionCampos.EscritorProyeccion.class);
+        // Compresión gzip/deflate por encima de un umbral (ver Compresion)
+        classes.add(Compresion.Interceptor.class);
+        // Latencia por ruta para /api/metrics (ver MetricasPeticiones)
+        classes.add(MetricasPeticiones.class);
+        // Límites de escrituras por cliente y ruta, y de escrituras en curso (ver ControlAdmision)
+        classes.add(ControlAdmision.class);
         return classes;
     }
 }
@@ -0,0 +1,29 @@
+package com.example.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Límites de admisión para los métodos de escritura (POST, PUT, DELETE) de un recurso, aplicados por
+ * ControlAdmision antes de leer el cuerpo. Cada valor puede cambiarse sin recompilar con la
+ * propiedad de sistema "admision.&lt;Recurso&gt;.&lt;atributo&gt;", por ejemplo
+ * -Dadmision.PublicacionResource.porCliente=5. Una tasa 0 desactiva esa cubeta.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LimiteEscrituras {
+
+    /** Escrituras por segundo que un cliente puede hacer en cada ruta. */
+    double porCliente() default 20;
+
+    /** Escrituras seguidas que un cliente puede hacer en una ruta antes de que rija la tasa. */
+    int rafagaCliente() default 40;
+
+    /** Escrituras por segundo de todos los clientes juntos en cada ruta. */
+    double porRuta() default 500;
+
+    /** Ráfaga de todos los clientes juntos en una ruta. */
+    int rafagaRuta() default 1000;
+}
@@ -0,0 +1,58 @@
+package com.example.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.Map;
+
+/**
+ * ObjectMapper único del servicio, registrado en JaxRsApplication: Jersey lo usa para leer y
+ * escribir todos los cuerpos JSON, en lugar de crear uno propio sin configurar.
+ *
+ * Tiene registrados los serializadores de SerializacionEntidades. Los ObjectWriter y ObjectReader
+ * de las entidades se arman una vez al iniciar (con el serializador ya resuelto) para el código
+ * que serializa por su cuenta, como SalidaStreaming.
+ */
+@Provider
+public class MapeadorJson implements ContextResolver<ObjectMapper> {
+    public static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(SerializacionEntidades.modulo())
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    private static final Map<Class<?>, ObjectWriter> ESCRITORES = Map.of(
+            Usuario.class, MAPPER.writerFor(Usuario.class),
+            Publicacion.class, MAPPER.writerFor(Publicacion.class),
+            Comentario.class, MAPPER.writerFor(Comentario.class),
+            Amistad.class, MAPPER.writerFor(Amistad.class),
+            UsuarioResumen.class, MAPPER.writerFor(UsuarioResumen.class));
+    private static final Map<Class<?>, ObjectReader> LECTORES = Map.of(
+            Usuario.class, MAPPER.readerFor(Usuario.class),
+            Publicacion.class, MAPPER.readerFor(Publicacion.class),
+            Comentario.class, MAPPER.readerFor(Comentario.class),
+            Amistad.class, MAPPER.readerFor(Amistad.class));
+    private static final ObjectWriter ESCRITOR_GENERICO = MAPPER.writer();
+
+    @Override
+    public ObjectMapper getContext(Class<?> tipo) {
+        return MAPPER;
+    }
+
+    /**
+     * ObjectWriter preparado para la clase, o uno genérico si no es una entidad.
+     */
+    public static ObjectWriter escritor(Class<?> tipo) {
+        return ESCRITORES.getOrDefault(tipo, ESCRITOR_GENERICO);
+    }
+
+    /**
+     * ObjectReader preparado para una entidad.
+     */
+    public static ObjectReader lector(Class<?> tipo) {
+        ObjectReader lector = LECTORES.get(tipo);
+        return lector != null ? lector : MAPPER.readerFor(tipo);
+    }
+}
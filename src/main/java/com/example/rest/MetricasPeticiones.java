@@ -0,0 +1,89 @@
+package com.example.rest;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.DynamicFeature;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.FeatureContext;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.IOException;
+
+/**
+ * Mide la latencia de cada petición y la registra en el histograma de su ruta (ver MetricasServicio).
+ *
+ * Al iniciar, esta feature registra en cada método de recurso un Medidor ya ligado a su ruta: por
+ * petición no hay que averiguar el método ni buscar la ruta, solo leer el reloj y registrar.
+ * Las peticiones sin método de recurso (404 y 405 de Jersey) no se miden.
+ */
+@Provider
+public class MetricasPeticiones implements DynamicFeature {
+    // Con la prioridad más baja el filtro de entrada corre primero, el de salida último y el
+    // interceptor envuelve a los demás (incluida la compresión)
+    private static final int PRIORIDAD = 1;
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext contexto) {
+        contexto.register(new Medidor(MetricasServicio.getInstance().ruta(resourceInfo.getResourceMethod())), PRIORIDAD);
+    }
+
+    /**
+     * El filtro de entrada anota el instante de inicio. Si la respuesta no tiene cuerpo se registra
+     * en el filtro de salida; si lo tiene, al terminar de escribirlo, así la latencia incluye la
+     * serialización (y el streaming de las colecciones).
+     */
+    public static class Medidor implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+        private static final String INICIO = Medidor.class.getName() + ".inicio";
+        private static final String ESTADO = Medidor.class.getName() + ".estado";
+
+        private final MetricasServicio.Ruta ruta;
+
+        public Medidor(MetricasServicio.Ruta ruta) {
+            this.ruta = ruta;
+        }
+
+        @Override
+        public void filter(ContainerRequestContext peticion) {
+            peticion.setProperty(INICIO, System.nanoTime());
+        }
+
+        @Override
+        public void filter(ContainerRequestContext peticion, ContainerResponseContext respuesta) {
+            Object inicio = peticion.getProperty(INICIO);
+            if (inicio == null) {
+                return;
+            }
+            if (respuesta.hasEntity() && !HttpMethod.HEAD.equals(peticion.getMethod())) {
+                peticion.setProperty(ESTADO, respuesta.getStatus());
+            } else {
+                peticion.removeProperty(INICIO);
+                ruta.registrar(respuesta.getStatus(), System.nanoTime() - (Long) inicio);
+            }
+        }
+
+        @Override
+        public void aroundWriteTo(WriterInterceptorContext contexto) throws IOException {
+            Object inicio = contexto.getProperty(INICIO);
+            Object estado = contexto.getProperty(ESTADO);
+            if (inicio == null || estado == null) {
+                contexto.proceed();
+                return;
+            }
+            contexto.removeProperty(INICIO);
+            int registrado = (Integer) estado;
+            try {
+                contexto.proceed();
+            } catch (IOException | RuntimeException e) {
+                registrado = 500; // El cliente ya recibió el estado, pero la respuesta quedó incompleta
+                throw e;
+            } finally {
+                ruta.registrar(registrado, System.nanoTime() - (Long) inicio);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.rest;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Recurso REST con métricas internas del servicio.
+ * Es síncrono: solo lee contadores, no bloquea.
+ */
+@Path("/metrics")
+@Produces({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+public class MetricasResource {
+    public static final String TEXTO_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * GET /api/metrics
+     * Todas las métricas en el formato de texto de Prometheus (ver MetricasServicio): latencia por
+     * ruta y clase de estado (p50, p90, p99, p999), operaciones de los repositorios, caché y compresión.
+     */
+    @GET
+    @Produces(TEXTO_PROMETHEUS)
+    public Response prometheus() {
+        return Response.ok(MetricasServicio.getInstance().prometheus()).build();
+    }
+
+    /**
+     * GET /api/metrics/cache
+     * Métricas de la caché de páginas de publicaciones (ver CachePublicaciones):
+     * aciertos, fallos, tasa de aciertos, invalidaciones, desalojos y memoria estimada.
+     */
+    @GET
+    @Path("/cache")
+    public Response cache() {
+        return Response.ok(CachePublicaciones.getInstance().metricas()).build();
+    }
+
+    /**
+     * GET /api/metrics/compresion
+     * Métricas de la compresión de respuestas (ver Compresion): respuestas comprimidas y bajo el
+     * umbral, bytes antes y después, tasa de compresión, tiempo de compresión y caché de comprimidos.
+     */
+    @GET
+    @Path("/compresion")
+    public Response compresion() {
+        return Response.ok(Compresion.getInstance().metricas()).build();
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.rest;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Path;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas del servicio para /api/metrics, en el formato de texto de Prometheus:
+ *
+ * - Latencia de las peticiones por ruta (método HTTP y plantilla, por ejemplo GET /usuarios/{id})
+ *   y clase de estado (2xx, 4xx...), con un Histograma por combinación. Las registra MetricasPeticiones.
+ * - Contadores de operaciones de cada repositorio (ver Operaciones).
+ * - Rechazos del control de admisión, y los valores de la caché de publicaciones, del feed en vivo,
+ *   del registro de escrituras y de la compresión.
+ *
+ * Los percentiles son acumulados desde el inicio del proceso; para tasas o ventanas de tiempo
+ * se usan _count y _sum desde Prometheus.
+ */
+public class MetricasServicio {
+    private static final MetricasServicio instance = new MetricasServicio();
+    private static final double[] CUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_POR_SEGUNDO = 1_000_000_000.0;
+
+    private final Map<Method, Ruta> rutasPorMetodo = new ConcurrentHashMap<>();
+    private final Map<String, Ruta> rutas = new ConcurrentHashMap<>();
+    private final Map<String, Operaciones> repositorios = new ConcurrentHashMap<>();
+
+    private MetricasServicio() {
+    }
+
+    public static MetricasServicio getInstance() {
+        return instance;
+    }
+
+    /**
+     * Ruta de un método de recurso. La plantilla se arma una vez con las anotaciones @Path de la
+     * clase y del método; dos métodos con la misma ruta (por ejemplo, JSON y NDJSON) la comparten.
+     */
+    public Ruta ruta(Method metodo) {
+        Ruta ruta = rutasPorMetodo.get(metodo);
+        if (ruta != null) {
+            return ruta;
+        }
+        String verbo = verbo(metodo);
+        String plantilla = unir(metodo.getDeclaringClass().getAnnotation(Path.class), metodo.getAnnotation(Path.class));
+        ruta = rutas.computeIfAbsent(verbo + " " + plantilla, k -> new Ruta(verbo, plantilla));
+        rutasPorMetodo.putIfAbsent(metodo, ruta);
+        return ruta;
+    }
+
+    private static String verbo(Method metodo) {
+        for (Annotation anotacion : metodo.getAnnotations()) {
+            HttpMethod verbo = anotacion.annotationType().getAnnotation(HttpMethod.class);
+            if (verbo != null) {
+                return verbo.value();
+            }
+        }
+        return "*";
+    }
+
+    private static String unir(Path deClase, Path deMetodo) {
+        StringBuilder plantilla = new StringBuilder();
+        for (Path path : new Path[]{deClase, deMetodo}) {
+            if (path == null) {
+                continue;
+            }
+            String valor = path.value();
+            if (!valor.startsWith("/")) {
+                plantilla.append('/');
+            }
+            plantilla.append(valor.endsWith("/") ? valor.substring(0, valor.length() - 1) : valor);
+        }
+        return plantilla.length() == 0 ? "/" : plantilla.toString();
+    }
+
+    /**
+     * Contadores de operaciones de un repositorio, creados la primera vez que se piden.
+     */
+    public Operaciones repositorio(String nombre) {
+        return repositorios.computeIfAbsent(nombre, Operaciones::new);
+    }
+
+    /**
+     * Todas las métricas en el formato de texto de Prometheus (versión 0.0.4).
+     */
+    public String prometheus() {
+        StringBuilder texto = new StringBuilder(16 * 1024);
+
+        texto.append("# HELP http_peticiones_segundos Latencia de las peticiones por ruta y clase de estado.\n");
+        texto.append("# TYPE http_peticiones_segundos summary\n");
+        for (Ruta ruta : new TreeMap<>(rutas).values()) {
+            for (int clase = 0; clase < Ruta.CLASES; clase++) {
+                Histograma histograma = ruta.histogramas.get(clase);
+                if (histograma == null) {
+                    continue;
+                }
+                Histograma.Lectura lectura = histograma.leer();
+                String etiquetas = "metodo=\"" + ruta.verbo + "\",ruta=\"" + escapar(ruta.plantilla)
+                        + "\",estado=\"" + (clase + 1) + "xx\"";
+                for (double cuantil : CUANTILES) {
+                    texto.append("http_peticiones_segundos{").append(etiquetas)
+                            .append(",quantile=\"").append(cuantil).append("\"} ")
+                            .append(segundos(lectura.percentil(cuantil))).append('\n');
+                }
+                texto.append("http_peticiones_segundos_sum{").append(etiquetas).append("} ")
+                        .append(segundos(lectura.getSumaNanos())).append('\n');
+                texto.append("http_peticiones_segundos_count{").append(etiquetas).append("} ")
+                        .append(lectura.getCantidad()).append('\n');
+            }
+        }
+
+        texto.append("# HELP repositorio_operaciones_total Operaciones atendidas por cada repositorio.\n");
+        texto.append("# TYPE repositorio_operaciones_total counter\n");
+        for (Operaciones operaciones : new TreeMap<>(repositorios).values()) {
+            for (Map.Entry<String, LongAdder> operacion : new TreeMap<>(operaciones.contadores).entrySet()) {
+                texto.append("repositorio_operaciones_total{repositorio=\"").append(operaciones.repositorio)
+                        .append("\",operacion=\"").append(operacion.getKey()).append("\"} ")
+                        .append(operacion.getValue().sum()).append('\n');
+            }
+        }
+
+        ControlAdmision.Metricas admision = ControlAdmision.metricas();
+        texto.append("# HELP admision_rechazos_total Escrituras rechazadas por el control de admisión.\n")
+                .append("# TYPE admision_rechazos_total counter\n")
+                .append("admision_rechazos_total{motivo=\"cliente\"} ").append(admision.getRechazosCliente()).append('\n')
+                .append("admision_rechazos_total{motivo=\"ruta\"} ").append(admision.getRechazosRuta()).append('\n')
+                .append("admision_rechazos_total{motivo=\"concurrencia\"} ").append(admision.getRechazosConcurrencia())
+                .append('\n');
+        medida(texto, "admision_escrituras_en_curso", "Escrituras admitidas que todavía no respondieron.",
+                admision.getEscriturasEnCurso());
+        medida(texto, "admision_escrituras_maximas", "Límite de escrituras en curso.", admision.getEscriturasMaximas());
+
+        CachePublicaciones.Metricas cache = CachePublicaciones.getInstance().metricas();
+        contador(texto, "cache_publicaciones_aciertos_total", "Páginas servidas desde la caché.", cache.getAciertos());
+        contador(texto, "cache_publicaciones_fallos_total", "Páginas leídas del repositorio.", cache.getFallos());
+        contador(texto, "cache_publicaciones_invalidaciones_total", "Entradas invalidadas por escrituras.",
+                cache.getInvalidaciones());
+        medida(texto, "cache_publicaciones_bytes", "Memoria estimada de la caché.", cache.getBytesEstimados());
+
+        FeedEnVivo.Metricas enVivo = FeedEnVivo.getInstance().metricas();
+        medida(texto, "sse_conexiones", "Conexiones abiertas al feed en vivo.", enVivo.getConectados());
+        contador(texto, "sse_eventos_enviados_total", "Eventos enviados por el feed en vivo.", enVivo.getEnviados());
+        contador(texto, "sse_eventos_descartados_total", "Eventos descartados por buffers llenos.",
+                enVivo.getDescartados());
+        contador(texto, "sse_rechazos_total", "Conexiones rechazadas por el máximo de suscripciones.",
+                enVivo.getRechazados());
+
+        RegistroEscrituras.Metricas wal = RegistroEscrituras.getInstance().metricas();
+        medida(texto, "wal_activo", "1 si las escrituras se registran en disco.", wal.isActivo() ? 1 : 0);
+        contador(texto, "wal_registros_total", "Registros agregados al registro de escrituras.", wal.getRegistros());
+        contador(texto, "wal_bytes_total", "Bytes agregados al registro de escrituras.", wal.getBytes());
+        contador(texto, "wal_lotes_total", "Lotes escritos en el archivo (commit en grupo).", wal.getLotes());
+        contador(texto, "wal_fsync_total", "Sincronizaciones del archivo con el disco.", wal.getSincronizaciones());
+
+        Compresion.Metricas compresion = Compresion.getInstance().metricas();
+        contador(texto, "compresion_respuestas_total", "Respuestas comprimidas.", compresion.getRespuestasComprimidas());
+        contador(texto, "compresion_bytes_originales_total", "Bytes antes de comprimir.", compresion.getBytesOriginales());
+        contador(texto, "compresion_bytes_comprimidos_total", "Bytes después de comprimir.",
+                compresion.getBytesComprimidos());
+        texto.append("# HELP compresion_segundos_total Tiempo dedicado a comprimir.\n")
+                .append("# TYPE compresion_segundos_total counter\n")
+                .append("compresion_segundos_total ").append(compresion.getTiempoCompresionMs() / 1000.0).append('\n');
+        return texto.toString();
+    }
+
+    private static void contador(StringBuilder texto, String nombre, String ayuda, long valor) {
+        texto.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n')
+                .append("# TYPE ").append(nombre).append(" counter\n")
+                .append(nombre).append(' ').append(valor).append('\n');
+    }
+
+    private static void medida(StringBuilder texto, String nombre, String ayuda, long valor) {
+        texto.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n')
+                .append("# TYPE ").append(nombre).append(" gauge\n")
+                .append(nombre).append(' ').append(valor).append('\n');
+    }
+
+    private static String segundos(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / NANOS_POR_SEGUNDO);
+    }
+
+    private static String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Latencias de una ruta, con un histograma por clase de estado creado con la primera muestra.
+     */
+    public static final class Ruta {
+        static final int CLASES = 5;
+
+        private final String verbo;
+        private final String plantilla;
+        private final AtomicReferenceArray<Histograma> histogramas = new AtomicReferenceArray<>(CLASES);
+
+        Ruta(String verbo, String plantilla) {
+            this.verbo = verbo;
+            this.plantilla = plantilla;
+        }
+
+        /**
+         * Registra la latencia de una petición que terminó con el estado dado.
+         */
+        public void registrar(int estado, long nanos) {
+            int clase = Math.min(Math.max(estado / 100, 1), CLASES) - 1;
+            Histograma histograma = histogramas.get(clase);
+            if (histograma == null) {
+                histogramas.compareAndSet(clase, null, new Histograma());
+                histograma = histogramas.get(clase);
+            }
+            histograma.registrar(nanos);
+        }
+    }
+
+    /**
+     * Contadores de operaciones de un repositorio, por nombre de operación.
+     */
+    public static final class Operaciones {
+        private final String repositorio;
+        private final Map<String, LongAdder> contadores = new ConcurrentHashMap<>();
+
+        Operaciones(String repositorio) {
+            this.repositorio = repositorio;
+        }
+
+        /**
+         * Cuenta una llamada a la operación.
+         */
+        public void contar(String operacion) {
+            LongAdder contador = contadores.get(operacion);
+            if (contador == null) {
+                contador = contadores.computeIfAbsent(operacion, k -> new LongAdder());
+            }
+            contador.increment();
+        }
+    }
+}
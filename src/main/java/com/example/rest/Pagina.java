@@ -0,0 +1,86 @@
+package com.example.rest;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Página de resultados de una consulta paginada por clave (keyset).
+ * siguienteId es la clave del último elemento devuelto, o null si no hay más páginas.
+ */
+public class Pagina<T> {
+    private final List<T> elementos;
+    private final Long siguienteId;
+
+    public Pagina(List<T> elementos, Long siguienteId) {
+        this.elementos = elementos;
+        this.siguienteId = siguienteId;
+    }
+
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    public Long getSiguienteId() {
+        return siguienteId;
+    }
+
+    /**
+     * Arma una página recorriendo un índice ordenado de IDs a partir de una clave.
+     * El orden lo define el propio índice (ascendente o descendente); el recorrido
+     * empieza después de 'despuesDe' y cuesta O(log n + limite).
+     * @param ids Índice ordenado de IDs
+     * @param despuesDe Clave del último elemento de la página anterior, o null para la primera
+     * @param limite Tamaño de página
+     * @param resolver Obtiene el elemento de un ID, o null si ya no existe (se omite)
+     */
+    public static <T> Pagina<T> desde(NavigableSet<Long> ids, Long despuesDe, int limite, Function<Long, T> resolver) {
+        List<T> elementos = new ArrayList<>(Math.min(limite, 64));
+        NavigableSet<Long> resto = despuesDe != null ? ids.tailSet(despuesDe, false) : ids;
+        Long ultimoId = null;
+        for (Long id : resto) {
+            T elemento = resolver.apply(id);
+            if (elemento == null) {
+                continue;
+            }
+            if (elementos.size() == limite) {
+                // Existe al menos un elemento más: hay página siguiente
+                return new Pagina<>(elementos, ultimoId);
+            }
+            elementos.add(elemento);
+            ultimoId = id;
+        }
+        return new Pagina<>(elementos, null);
+    }
+
+    /**
+     * Recorre un índice ordenado completo sin copiarlo: los elementos se resuelven a medida
+     * que se piden, así la memoria usada no depende del tamaño del índice.
+     * El recorrido es débilmente consistente (refleja altas y bajas concurrentes o no, sin fallar).
+     * @param ids Índice ordenado de IDs
+     * @param resolver Obtiene el elemento de un ID, o null si ya no existe (se omite)
+     */
+    public static <T> Iterator<T> recorrer(NavigableSet<Long> ids, Function<Long, T> resolver) {
+        Iterator<Long> iterador = ids.iterator();
+        return new Iterator<T>() {
+            private T siguiente;
+
+            @Override
+            public boolean hasNext() {
+                while (siguiente == null && iterador.hasNext()) {
+                    siguiente = resolver.apply(iterador.next());
+                }
+                return siguiente != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T elemento = siguiente;
+                siguiente = null;
+                return elemento;
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.rest;
+
+import jakarta.ws.rs.core.Response;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Utilidades para los parámetros de paginación de los endpoints de listas.
+ *
+ * Query params:
+ * - limit: tamaño de página (por defecto LIMITE_POR_DEFECTO, máximo LIMITE_MAXIMO)
+ * - cursor: valor opaco devuelto en la cabecera X-Next-Cursor de la página anterior
+ */
+public final class Paginacion {
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+    public static final String CABECERA_CURSOR = "X-Next-Cursor";
+
+    private static final Base64.Encoder CODIFICADOR = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODIFICADOR = Base64.getUrlDecoder();
+
+    private Paginacion() {
+    }
+
+    /**
+     * Indica si la petición pidió paginación (limit o cursor presentes).
+     */
+    public static boolean solicitada(Integer limit, String cursor) {
+        return limit != null || (cursor != null && !cursor.isEmpty());
+    }
+
+    /**
+     * Valida y acota el tamaño de página.
+     */
+    public static int limite(Integer limit) {
+        if (limit == null) {
+            return LIMITE_POR_DEFECTO;
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El parámetro limit debe ser mayor que cero");
+        }
+        return Math.min(limit, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Decodifica un cursor opaco a la clave de la última posición leída.
+     * @return la clave, o null si no se envió cursor
+     */
+    public static Long decodificar(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            byte[] bytes = DECODIFICADOR.decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+
+    /**
+     * Codifica una clave como cursor opaco.
+     */
+    public static String codificar(long clave) {
+        return CODIFICADOR.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(clave).array());
+    }
+
+    /**
+     * Respuesta 200 con los elementos de la página y, si hay más, la cabecera X-Next-Cursor.
+     */
+    public static Response.ResponseBuilder ok(Pagina<?> pagina) {
+        Response.ResponseBuilder respuesta = Response.ok(pagina.getElementos());
+        if (pagina.getSiguienteId() != null) {
+            respuesta.header(CABECERA_CURSOR, codificar(pagina.getSiguienteId()));
+        }
+        return respuesta;
+    }
+}
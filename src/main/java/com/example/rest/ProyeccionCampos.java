@@ -0,0 +1,163 @@
+package com.example.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.DynamicFeature;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.FeatureContext;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.function.Function;
+
+/**
+ * Campos parciales en todos los GET: ?fields=id,nombre devuelve solo esas propiedades de cada
+ * entidad (ver Campos), en JSON, CBOR, Smile o NDJSON.
+ *
+ * El filtro de entrada interpreta el parámetro antes de llegar al recurso: un campo que no tiene
+ * la entidad que declara el método con DevuelveEntidad (aunque lo tenga otra), o ?fields= en un
+ * GET sin esa anotación, es 400. El de salida envuelve el cuerpo de las respuestas 2xx en una
+ * Proyeccion, que EscritorProyeccion serializa con el mapper del formato negociado y la máscara como atributo del ObjectWriter; los
+ * serializadores de SerializacionEntidades se saltan las propiedades que no están en la máscara.
+ * Los objetos que no son entidades (errores, mensajes, contadores) se escriben completos.
+ *
+ * El ETag no cambia: ?fields= es parte de la URL, así que cada proyección es un recurso distinto
+ * para las cachés (y para la caché de Compresion, que usa la URL completa como clave).
+ */
+@Provider
+public class ProyeccionCampos implements DynamicFeature {
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext contexto) {
+        Method metodo = resourceInfo.getResourceMethod();
+        if (!metodo.isAnnotationPresent(GET.class)) {
+            return;
+        }
+        DevuelveEntidad devuelve = metodo.getAnnotation(DevuelveEntidad.class);
+        if (devuelve == null) {
+            contexto.register(new Filtro(uriInfo -> null)); // No devuelve entidades: ?fields= es 400
+            return;
+        }
+        Campos.Entidad entidad = Campos.entidad(devuelve.value());
+        if (devuelve.completo() == Void.class) {
+            contexto.register(new Filtro(uriInfo -> entidad));
+        } else {
+            Campos.Entidad completa = Campos.entidad(devuelve.completo());
+            contexto.register(new Filtro(uriInfo -> Boolean.parseBoolean(uriInfo.getQueryParameters().getFirst("completo"))
+                    ? completa : entidad));
+        }
+    }
+
+    /**
+     * Interpreta ?fields= (validado contra la entidad que devuelve el recurso) y, si vino, proyecta
+     * el cuerpo de la respuesta.
+     */
+    public static class Filtro implements ContainerRequestFilter, ContainerResponseFilter {
+        private static final String CAMPOS = Filtro.class.getName() + ".campos";
+
+        private final Function<UriInfo, Campos.Entidad> entidad;
+
+        public Filtro(Function<UriInfo, Campos.Entidad> entidad) {
+            this.entidad = entidad;
+        }
+
+        @Override
+        public void filter(ContainerRequestContext peticion) {
+            String valor = peticion.getUriInfo().getQueryParameters().getFirst(Campos.PARAMETRO);
+            if (valor == null) {
+                return;
+            }
+            try {
+                peticion.setProperty(CAMPOS, Campos.de(valor, entidad.apply(peticion.getUriInfo())));
+            } catch (IllegalArgumentException e) {
+                peticion.abortWith(Response.status(Response.Status.BAD_REQUEST)
+                        .type(MediaType.APPLICATION_JSON_TYPE)
+                        .entity(new UsuarioResource.ErrorResponse(e.getMessage()))
+                        .build());
+            }
+        }
+
+        @Override
+        public void filter(ContainerRequestContext peticion, ContainerResponseContext respuesta) {
+            Object campos = peticion.getProperty(CAMPOS);
+            if (campos == null || !respuesta.hasEntity()
+                    || respuesta.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL
+                    || !proyectable(respuesta.getMediaType())) {
+                return;
+            }
+            respuesta.setEntity(new Proyeccion(respuesta.getEntity(), (Campos) campos),
+                    respuesta.getEntityAnnotations(), respuesta.getMediaType());
+        }
+
+        private static boolean proyectable(MediaType tipo) {
+            return tipo != null && (MediaType.APPLICATION_JSON_TYPE.isCompatible(tipo)
+                    || FormatosBinarios.APPLICATION_CBOR_TYPE.isCompatible(tipo)
+                    || FormatosBinarios.APPLICATION_SMILE_TYPE.isCompatible(tipo)
+                    || SalidaStreaming.esNdjson(tipo));
+        }
+    }
+
+    /**
+     * Cuerpo de una respuesta con los campos que pidió el cliente.
+     */
+    public static final class Proyeccion {
+        private final Object entidad;
+        private final Campos campos;
+
+        Proyeccion(Object entidad, Campos campos) {
+            this.entidad = entidad;
+            this.campos = campos;
+        }
+    }
+
+    /**
+     * Escribe una Proyeccion con el mapper del formato negociado y la máscara de campos.
+     */
+    @Provider
+    @Produces({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE,
+            SalidaStreaming.APPLICATION_NDJSON})
+    public static class EscritorProyeccion implements MessageBodyWriter<Proyeccion> {
+        private static final ObjectWriter WRITER = MapeadorJson.MAPPER.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        private static final ObjectWriter WRITER_CBOR = FormatosBinarios.CBOR.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        private static final ObjectWriter WRITER_SMILE = FormatosBinarios.SMILE.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        @Override
+        public boolean isWriteable(Class<?> tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType mediaType) {
+            return tipo == Proyeccion.class;
+        }
+
+        @Override
+        public void writeTo(Proyeccion proyeccion, Class<?> tipo, Type tipoGenerico, Annotation[] anotaciones,
+                            MediaType mediaType, MultivaluedMap<String, Object> encabezados,
+                            OutputStream salida) throws IOException {
+            ObjectMapper mapper = FormatosBinarios.mapper(mediaType);
+            ObjectWriter writer = (mapper == FormatosBinarios.CBOR ? WRITER_CBOR
+                    : mapper == FormatosBinarios.SMILE ? WRITER_SMILE : WRITER)
+                    .withAttribute(Campos.class, proyeccion.campos);
+            if (proyeccion.entidad instanceof SalidaStreaming.Arreglo arreglo) {
+                SalidaStreaming.escribir(arreglo, mediaType, mapper, writer, salida);
+            } else {
+                writer.writeValue(salida, proyeccion.entidad);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.rest;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Objects;
 
 /**
@@ -9,8 +11,11 @@ public class Publicacion {
     private Long id;
     private Long usuarioId;
     private String contenido;
-    private String fechaCreacion;
+    private long fechaCreacion; // Milisegundos desde epoch; se formatea al serializar
     private Integer likes;
+    // Contador concurrente asignado por el repositorio; no forma parte del JSON
+    private ContadorLikes contadorLikes;
+    private long version; // Asignada por el repositorio; no forma parte del JSON
 
     public Publicacion() {
         this.likes = 0;
@@ -20,7 +25,7 @@ public class Publicacion {
         this.id = id;
         this.usuarioId = usuarioId;
         this.contenido = contenido;
-        this.fechaCreacion = fechaCreacion;
+        this.fechaCreacion = Fechas.parsear(fechaCreacion);
         this.likes = likes != null ? likes : 0;
     }
 
@@ -49,21 +54,62 @@ public class Publicacion {
     }
 
     public String getFechaCreacion() {
-        return fechaCreacion;
+        return Fechas.formatear(fechaCreacion);
     }
 
     public void setFechaCreacion(String fechaCreacion) {
+        this.fechaCreacion = Fechas.parsear(fechaCreacion);
+    }
+
+    @JsonIgnore
+    public long getFechaCreacionMillis() {
+        return fechaCreacion;
+    }
+
+    @JsonIgnore
+    public void setFechaCreacionMillis(long fechaCreacion) {
         this.fechaCreacion = fechaCreacion;
     }
 
     public Integer getLikes() {
-        return likes;
+        return contadorLikes != null ? (int) contadorLikes.valor() : likes;
     }
 
     public void setLikes(Integer likes) {
         this.likes = likes != null ? likes : 0;
     }
 
+    /**
+     * Copia con los likes fijos en su valor actual, para que el cuerpo de la respuesta
+     * coincida con el ETag calculado a partir de él.
+     */
+    Publicacion instantanea() {
+        Publicacion copia = new Publicacion(id, usuarioId, contenido, null, getLikes());
+        copia.fechaCreacion = fechaCreacion;
+        copia.version = version;
+        return copia;
+    }
+
+    ContadorLikes contadorLikes() {
+        return contadorLikes;
+    }
+
+    void asignarContadorLikes(ContadorLikes contadorLikes) {
+        this.contadorLikes = contadorLikes;
+    }
+
+    /**
+     * Versión asignada por el repositorio en cada escritura (ver Condicional).
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,23 +1,52 @@
 package com.example.rest;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 /**
  * Repositorio en memoria para gestionar publicaciones.
+ * Mantiene un índice secundario usuarioId -> IDs de sus publicaciones, ordenado
+ * de la más reciente a la más antigua (los IDs crecen con la fecha de creación).
+ *
+ * Los likes de cada publicación viven en un ContadorLikes. Si la propiedad de sistema
+ * "likes.consolidacion.ms" es mayor que cero, los contadores trabajan por lotes: un hilo
+ * publica cada ese intervalo los valores de los contadores que cambiaron.
+ *
+ * Cada alta o modificación asigna a la publicación una versión nueva del reloj del repositorio.
+ * Los likes no la cambian (no pasan por un contador global): el ETag combina versión y likes.
+ *
+ * Las escrituras se anotan en el RegistroEscrituras antes de hacerse visibles.
  */
 public class PublicacionRepository {
     private static final PublicacionRepository instance = new PublicacionRepository();
+    private final MetricasServicio.Operaciones operaciones = MetricasServicio.getInstance().repositorio("publicaciones");
     private final Map<Long, Publicacion> publicaciones = new ConcurrentHashMap<>();
+    private final Map<Long, ConcurrentSkipListSet<Long>> publicacionesPorUsuario = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Long> idsOrdenados = new ConcurrentSkipListSet<>();
     private final AtomicLong idGenerator = new AtomicLong(1);
+    private final AtomicLong reloj = new AtomicLong();
     private final UsuarioRepository usuarioRepository = UsuarioRepository.getInstance();
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final long consolidacionLikesMs = Long.getLong("likes.consolidacion.ms", 0L);
+    private final Queue<Publicacion> likesPendientes = new ConcurrentLinkedQueue<>();
+    private final CachePublicaciones cache = CachePublicaciones.getInstance();
+    private final RegistroEscrituras wal = RegistroEscrituras.getInstance();
 
     private PublicacionRepository() {
+        if (consolidacionLikesMs > 0) {
+            ScheduledExecutorService consolidador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "consolidador-likes");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            consolidador.scheduleWithFixedDelay(this::consolidarLikes,
+                    consolidacionLikesMs, consolidacionLikesMs, TimeUnit.MILLISECONDS);
+        }
     }
 
     public static PublicacionRepository getInstance() {
@@ -28,6 +57,45 @@ public class PublicacionRepository {
      * Crea una nueva publicación.
      */
     public Publicacion crear(Publicacion publicacion) {
+        operaciones.contar("crear");
+        validarNueva(publicacion);
+        wal.confirmar(insertar(publicacion, idGenerator.getAndIncrement(), Fechas.ahora()));
+        return publicacion;
+    }
+
+    /**
+     * Crea varias publicaciones en una sola operación. Cada elemento se valida por separado
+     * y recibe su propio resultado; los válidos se insertan con IDs reservados en un solo bloque.
+     */
+    public List<ResultadoLote<Publicacion>> crearLote(List<Publicacion> lote) {
+        operaciones.contar("crearLote");
+        String[] errores = new String[lote.size()];
+        int validos = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            try {
+                validarNueva(lote.get(i));
+                validos++;
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
+            }
+        }
+
+        long siguienteId = idGenerator.getAndAdd(validos);
+        long posicion = 0;
+        List<ResultadoLote<Publicacion>> resultados = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            if (errores[i] != null) {
+                resultados.add(ResultadoLote.error(i, errores[i]));
+            } else {
+                posicion = insertar(lote.get(i), siguienteId++, Fechas.ahora());
+                resultados.add(ResultadoLote.creado(i, lote.get(i)));
+            }
+        }
+        wal.confirmar(posicion); // Confirmar el último registro confirma todo el lote
+        return resultados;
+    }
+
+    private void validarNueva(Publicacion publicacion) {
         if (publicacion == null) {
             throw new IllegalArgumentException("La publicación no puede ser nula");
         }
@@ -44,115 +112,229 @@ public class PublicacionRepository {
         if (publicacion.getContenido() == null || publicacion.getContenido().trim().isEmpty()) {
             throw new IllegalArgumentException("El contenido de la publicación no puede estar vacío");
         }
+    }
+
+    /**
+     * Publicación recuperada del RegistroEscrituras: conserva su ID y su fecha, y deja el
+     * generador de IDs después de ella.
+     */
+    void restaurar(Publicacion publicacion) {
+        idGenerator.accumulateAndGet(publicacion.getId() + 1, Math::max);
+        insertar(publicacion, publicacion.getId(), publicacion.getFechaCreacionMillis());
+    }
 
-        Long nuevoId = idGenerator.getAndIncrement();
+    /**
+     * Inserta la publicación y devuelve la posición de su registro para RegistroEscrituras.confirmar.
+     */
+    private long insertar(Publicacion publicacion, Long nuevoId, long fechaCreacion) {
         publicacion.setId(nuevoId);
-        publicacion.setFechaCreacion(LocalDateTime.now().format(formatter));
+        publicacion.setFechaCreacionMillis(fechaCreacion);
         if (publicacion.getLikes() == null) {
             publicacion.setLikes(0);
         }
+        long posicion = wal.publicacionCreada(publicacion);
+        publicacion.asignarContadorLikes(new ContadorLikes(publicacion.getLikes(), consolidacionLikesMs > 0));
+        publicacion.setVersion(reloj.incrementAndGet());
         publicaciones.put(nuevoId, publicacion);
-        return publicacion;
+        idsOrdenados.add(nuevoId);
+        publicacionesPorUsuario
+                .computeIfAbsent(publicacion.getUsuarioId(), k -> new ConcurrentSkipListSet<>(Comparator.reverseOrder()))
+                .add(nuevoId);
+        FeedRepository.getInstance().publicacionCreada(publicacion);
+        cache.publicacionCreada(publicacion);
+        FeedEnVivo.getInstance().publicacionCreada(publicacion);
+        return posicion;
     }
 
     /**
      * Obtiene todas las publicaciones.
      */
     public List<Publicacion> obtenerTodas() {
+        operaciones.contar("obtenerTodas");
         return new ArrayList<>(publicaciones.values());
     }
 
+    /**
+     * Obtiene una página de publicaciones ordenadas por ID (más antiguas primero).
+     */
+    public Pagina<Publicacion> obtenerPagina(Long despuesDeId, int limite) {
+        operaciones.contar("obtenerPagina");
+        return Pagina.desde(idsOrdenados, despuesDeId, limite, publicaciones::get);
+    }
+
+    /**
+     * Recorre todas las publicaciones en orden de ID sin copiarlas (ver Pagina.recorrer).
+     */
+    public Iterator<Publicacion> recorrerTodas() {
+        operaciones.contar("recorrerTodas");
+        return Pagina.recorrer(idsOrdenados, publicaciones::get);
+    }
+
     /**
      * Obtiene una publicación por ID.
      */
     public Optional<Publicacion> buscarPorId(Long id) {
+        operaciones.contar("buscarPorId");
         return Optional.ofNullable(publicaciones.get(id));
     }
 
+    /**
+     * Recorre las publicaciones de un usuario, más recientes primero, sin copiarlas (ver Pagina.recorrer).
+     */
+    public Iterator<Publicacion> recorrerPorUsuarioId(Long usuarioId) {
+        operaciones.contar("recorrerPorUsuarioId");
+        return Pagina.recorrer(idsPorUsuario(usuarioId), publicaciones::get);
+    }
+
     /**
      * Obtiene todas las publicaciones de un usuario específico.
      */
     public List<Publicacion> obtenerPorUsuarioId(Long usuarioId) {
-        return publicaciones.values().stream()
-                .filter(p -> p.getUsuarioId().equals(usuarioId))
-                .sorted((p1, p2) -> p2.getFechaCreacion().compareTo(p1.getFechaCreacion())) // Más recientes primero
-                .collect(Collectors.toList());
+        return obtenerPorUsuarioId(usuarioId, Integer.MAX_VALUE, null).getElementos();
+    }
+
+    /**
+     * Obtiene una página de publicaciones de un usuario, más recientes primero.
+     * Si se indica antesDeId solo se devuelven publicaciones anteriores a esa
+     * (con ID menor), lo que permite recorrer el perfil página a página.
+     */
+    public Pagina<Publicacion> obtenerPorUsuarioId(Long usuarioId, int limite, Long antesDeId) {
+        operaciones.contar("obtenerPorUsuarioId");
+        return Pagina.desde(idsPorUsuario(usuarioId), antesDeId, limite, publicaciones::get);
     }
 
     /**
-     * Obtiene las publicaciones de los amigos de un usuario.
+     * Obtiene las publicaciones de los amigos de un usuario, más recientes primero.
      */
     public List<Publicacion> obtenerPublicacionesAmigos(Long usuarioId) {
-        AmistadRepository amistadRepo = AmistadRepository.getInstance();
-        List<Long> amigosIds = amistadRepo.obtenerAmigosIds(usuarioId);
-        
-        return publicaciones.values().stream()
-                .filter(p -> amigosIds.contains(p.getUsuarioId()))
-                .sorted((p1, p2) -> p2.getFechaCreacion().compareTo(p1.getFechaCreacion()))
-                .collect(Collectors.toList());
+        return obtenerPublicacionesAmigos(usuarioId, Integer.MAX_VALUE, null).getElementos();
+    }
+
+    /**
+     * Obtiene una página del feed de amigos de un usuario (ver FeedRepository).
+     */
+    public Pagina<Publicacion> obtenerPublicacionesAmigos(Long usuarioId, int limite, Long antesDeId) {
+        operaciones.contar("obtenerPublicacionesAmigos");
+        return FeedRepository.getInstance().obtener(usuarioId, limite, antesDeId);
+    }
+
+    /**
+     * IDs de las publicaciones de un usuario, más recientes primero (vista del índice).
+     */
+    NavigableSet<Long> idsPorUsuario(Long usuarioId) {
+        NavigableSet<Long> ids = publicacionesPorUsuario.get(usuarioId);
+        return ids != null ? ids : Collections.emptyNavigableSet();
     }
 
     /**
      * Actualiza una publicación.
      */
     public Publicacion actualizar(Long id, Publicacion publicacionActualizada) {
+        operaciones.contar("actualizar");
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
         }
 
-        Publicacion publicacionExistente = publicaciones.get(id);
-        if (publicacionExistente == null) {
-            throw new IllegalArgumentException("Publicación no encontrada con ID: " + id);
-        }
-
         if (publicacionActualizada.getContenido() == null || publicacionActualizada.getContenido().trim().isEmpty()) {
             throw new IllegalArgumentException("El contenido de la publicación no puede estar vacío");
         }
 
-        publicacionActualizada.setId(id);
-        publicacionActualizada.setUsuarioId(publicacionExistente.getUsuarioId()); // No se puede cambiar el autor
-        publicacionActualizada.setFechaCreacion(publicacionExistente.getFechaCreacion()); // Mantener fecha original
-        if (publicacionActualizada.getLikes() == null) {
-            publicacionActualizada.setLikes(publicacionExistente.getLikes());
+        // computeIfPresent ordena la actualización con una baja concurrente: si la baja ganó no se
+        // anota nada; si no, el registro de la actualización queda antes que el de la baja
+        long[] posicion = new long[1];
+        Publicacion resultado = publicaciones.computeIfPresent(id, (clave, publicacionExistente) -> {
+            posicion[0] = wal.publicacionActualizada(id, publicacionActualizada.getContenido());
+            publicacionActualizada.setId(id);
+            publicacionActualizada.setUsuarioId(publicacionExistente.getUsuarioId()); // No se puede cambiar el autor
+            publicacionActualizada.setFechaCreacionMillis(publicacionExistente.getFechaCreacionMillis()); // Mantener fecha original
+            publicacionActualizada.asignarContadorLikes(publicacionExistente.contadorLikes()); // Mantener likes
+            publicacionActualizada.setVersion(reloj.incrementAndGet());
+            return publicacionActualizada;
+        });
+        if (resultado == null) {
+            throw new IllegalArgumentException("Publicación no encontrada con ID: " + id);
         }
-        publicaciones.put(id, publicacionActualizada);
-        return publicacionActualizada;
+        cache.publicacionModificada(resultado);
+        wal.confirmar(posicion[0]);
+        return resultado;
     }
 
     /**
      * Elimina una publicación.
      */
     public boolean eliminar(Long id) {
-        if (id == null) {
+        operaciones.contar("eliminar");
+        if (id == null || !publicaciones.containsKey(id)) {
             return false;
         }
-        return publicaciones.remove(id) != null;
+        long posicion = wal.publicacionEliminada(id);
+        Publicacion eliminada = publicaciones.remove(id);
+        if (eliminada == null) {
+            return false; // Otra baja concurrente; su registro repetido no cambia nada al recuperar
+        }
+        idsOrdenados.remove(id);
+        Set<Long> ids = publicacionesPorUsuario.get(eliminada.getUsuarioId());
+        if (ids != null) {
+            ids.remove(id);
+        }
+        cache.publicacionModificada(eliminada);
+        wal.confirmar(posicion);
+        return true;
     }
 
     /**
      * Incrementa los likes de una publicación.
      */
     public Publicacion darLike(Long id) {
+        operaciones.contar("darLike");
         Publicacion publicacion = publicaciones.get(id);
         if (publicacion == null) {
             throw new IllegalArgumentException("Publicación no encontrada con ID: " + id);
         }
-        publicacion.setLikes(publicacion.getLikes() + 1);
+        // Anotar antes de sumar: así un "quitar like" nunca queda en el registro antes que el like que quita
+        long posicion = wal.likes(id, 1);
+        publicacion.contadorLikes().incrementar();
+        likeModificado(publicacion);
+        wal.confirmar(posicion);
         return publicacion;
     }
 
     /**
-     * Decrementa los likes de una publicación.
+     * Decrementa los likes de una publicación (nunca por debajo de cero).
      */
     public Publicacion quitarLike(Long id) {
+        operaciones.contar("quitarLike");
         Publicacion publicacion = publicaciones.get(id);
         if (publicacion == null) {
             throw new IllegalArgumentException("Publicación no encontrada con ID: " + id);
         }
-        if (publicacion.getLikes() > 0) {
-            publicacion.setLikes(publicacion.getLikes() - 1);
+        if (publicacion.contadorLikes().decrementar()) {
+            long posicion = wal.likes(id, -1);
+            likeModificado(publicacion);
+            wal.confirmar(posicion);
         }
         return publicacion;
     }
+
+    /**
+     * Un cambio de likes es visible enseguida, o al consolidar si el contador trabaja por lotes.
+     * No invalida la caché: sus páginas leen los likes del mismo contador (ver CachePublicaciones).
+     */
+    private void likeModificado(Publicacion publicacion) {
+        ContadorLikes contador = publicacion.contadorLikes();
+        if (contador.isEnLote() && contador.marcarPendiente()) {
+            likesPendientes.add(publicacion);
+        }
+    }
+
+    /**
+     * Publica el valor de los contadores que cambiaron desde la última consolidación.
+     */
+    private void consolidarLikes() {
+        Publicacion publicacion;
+        while ((publicacion = likesPendientes.poll()) != null) {
+            publicacion.contadorLikes().consolidar();
+        }
+    }
 }
 
@@ -1,129 +1,291 @@
 package com.example.rest;
 
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import java.util.List;
 
 /**
  * Recurso REST para gestionar publicaciones de usuarios.
  */
 @Path("/publicaciones")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+@LimiteEscrituras
 public class PublicacionResource {
 
     private final PublicacionRepository publicacionRepository = PublicacionRepository.getInstance();
     private final UsuarioRepository usuarioRepository = UsuarioRepository.getInstance();
+    private final CachePublicaciones cache = CachePublicaciones.getInstance();
 
     /**
      * GET /api/publicaciones
      * Obtiene todas las publicaciones.
+     * 
+     * Query params opcionales:
+     * - limit, cursor: paginación por cursor, en orden de creación (ver Paginacion)
+     *
+     * Sin paginación la respuesta se escribe en streaming, sin cargar la colección en memoria.
      */
     @GET
-    public Response obtenerTodas() {
-        try {
-            List<Publicacion> publicaciones = publicacionRepository.obtenerTodas();
-            return Response.ok(publicaciones).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener publicaciones: " + e.getMessage()))
-                    .build();
-        }
+    @DevuelveEntidad(Publicacion.class)
+    public void obtenerTodas(@QueryParam("limit") Integer limit,
+                             @QueryParam("cursor") String cursor,
+                             @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (Paginacion.solicitada(limit, cursor)) {
+                    return Paginacion.ok(publicacionRepository.obtenerPagina(
+                            Paginacion.decodificar(cursor), Paginacion.limite(limit))).build();
+                }
+                // Sin paginación se transmite la colección completa a medida que se serializa
+                return Response.ok(SalidaStreaming.arreglo(publicacionRepository.recorrerTodas())).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener publicaciones: " + e.getMessage()))
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * GET /api/publicaciones con Accept: application/x-ndjson
+     * Transmite todas las publicaciones en orden de creación, una por línea (NDJSON).
+     */
+    @GET
+    @Produces(SalidaStreaming.APPLICATION_NDJSON + ";qs=0.5")
+    @DevuelveEntidad(Publicacion.class)
+    public void obtenerTodasNdjson(@Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                return Response.ok(SalidaStreaming.ndjson(publicacionRepository.recorrerTodas())).build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .type(MediaType.APPLICATION_JSON)
+                        .entity(new ErrorResponse("Error al obtener publicaciones: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
      * GET /api/publicaciones/{id}
      * Obtiene una publicación por ID.
+     * Responde con ETag (versión y likes); si coincide con If-None-Match devuelve 304 sin cuerpo.
      */
     @GET
     @Path("/{id}")
-    public Response obtenerPorId(@PathParam("id") Long id) {
-        try {
-            return publicacionRepository.buscarPorId(id)
-                    .map(publicacion -> Response.ok(publicacion).build())
-                    .orElse(Response.status(Response.Status.NOT_FOUND)
-                            .entity(new ErrorResponse("Publicación no encontrada con ID: " + id))
-                            .build());
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener publicación: " + e.getMessage()))
-                    .build();
-        }
+    @DevuelveEntidad(Publicacion.class)
+    public void obtenerPorId(@PathParam("id") Long id, @Context Request request, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                return publicacionRepository.buscarPorId(id)
+                        .map(Publicacion::instantanea)
+                        .map(publicacion -> Condicional.ok(request,
+                                Condicional.etiqueta(request, publicacion.getVersion(), publicacion.getLikes()), publicacion).build())
+                        .orElse(Response.status(Response.Status.NOT_FOUND)
+                                .entity(new ErrorResponse("Publicación no encontrada con ID: " + id))
+                                .build());
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener publicación: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
      * GET /api/publicaciones/usuario/{usuarioId}
-     * Obtiene todas las publicaciones de un usuario específico.
+     * Obtiene todas las publicaciones de un usuario específico, más recientes primero.
+     * 
+     * Query params opcionales:
+     * - limit, cursor: paginación por cursor (ver Paginacion)
+     *
+     * La primera página (sin cursor) se sirve desde CachePublicaciones; sin paginación, la lista
+     * completa se transmite desde el repositorio.
      */
     @GET
     @Path("/usuario/{usuarioId}")
-    public Response obtenerPorUsuario(@PathParam("usuarioId") Long usuarioId) {
-        try {
-            if (!usuarioRepository.buscarPorId(usuarioId).isPresent()) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("Usuario no encontrado con ID: " + usuarioId))
+    @DevuelveEntidad(Publicacion.class)
+    public void obtenerPorUsuario(@PathParam("usuarioId") Long usuarioId,
+                                  @QueryParam("limit") Integer limit,
+                                  @QueryParam("cursor") String cursor,
+                                  @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (!usuarioRepository.buscarPorId(usuarioId).isPresent()) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("Usuario no encontrado con ID: " + usuarioId))
+                            .build();
+                }
+
+                if (Paginacion.solicitada(limit, cursor)) {
+                    int limite = Paginacion.limite(limit);
+                    Long antesDeId = Paginacion.decodificar(cursor);
+                    // La primera página sale de la caché; las siguientes, del repositorio
+                    return Paginacion.ok(antesDeId == null
+                            ? cache.perfil(usuarioId, limite)
+                            : publicacionRepository.obtenerPorUsuarioId(usuarioId, limite, antesDeId)).build();
+                }
+                // Sin paginación se transmite la colección completa a medida que se serializa
+                return Response.ok(SalidaStreaming.arreglo(publicacionRepository.recorrerPorUsuarioId(usuarioId))).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener publicaciones: " + e.getMessage()))
                         .build();
             }
-
-            List<Publicacion> publicaciones = publicacionRepository.obtenerPorUsuarioId(usuarioId);
-            return Response.ok(publicaciones).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener publicaciones: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
      * GET /api/publicaciones/amigos/{usuarioId}
-     * Obtiene las publicaciones de los amigos de un usuario.
+     * Obtiene una página de publicaciones de los amigos de un usuario, más recientes primero.
+     * 
+     * Query params opcionales:
+     * - limit, cursor: paginación por cursor (ver Paginacion); el feed siempre se pagina
+     *
+     * La primera página (sin cursor) se sirve desde CachePublicaciones.
      */
     @GET
     @Path("/amigos/{usuarioId}")
-    public Response obtenerPublicacionesAmigos(@PathParam("usuarioId") Long usuarioId) {
-        try {
-            if (!usuarioRepository.buscarPorId(usuarioId).isPresent()) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("Usuario no encontrado con ID: " + usuarioId))
+    @DevuelveEntidad(Publicacion.class)
+    public void obtenerPublicacionesAmigos(@PathParam("usuarioId") Long usuarioId,
+                                           @QueryParam("limit") Integer limit,
+                                           @QueryParam("cursor") String cursor,
+                                           @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (!usuarioRepository.buscarPorId(usuarioId).isPresent()) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("Usuario no encontrado con ID: " + usuarioId))
+                            .build();
+                }
+
+                int limite = Paginacion.limite(limit);
+                Long antesDeId = Paginacion.decodificar(cursor);
+                return Paginacion.ok(antesDeId == null
+                        ? cache.feed(usuarioId, limite)
+                        : publicacionRepository.obtenerPublicacionesAmigos(usuarioId, limite, antesDeId)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener publicaciones de amigos: " + e.getMessage()))
                         .build();
             }
+        });
+    }
 
-            List<Publicacion> publicaciones = publicacionRepository.obtenerPublicacionesAmigos(usuarioId);
-            return Response.ok(publicaciones).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener publicaciones de amigos: " + e.getMessage()))
-                    .build();
+    /**
+     * GET /api/publicaciones/amigos/{usuarioId}/stream
+     * Publicaciones nuevas de los amigos de un usuario, en vivo, por Server-Sent Events (ver FeedEnVivo).
+     * Cada evento "publicacion" lleva como ID el de la publicación; al reconectar con el encabezado
+     * Last-Event-ID se reenvían las publicaciones del feed posteriores a esa.
+     */
+    @GET
+    @Path("/amigos/{usuarioId}/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamPublicacionesAmigos(@PathParam("usuarioId") Long usuarioId,
+                                          @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String ultimoEvento,
+                                          @Context SseEventSink sink,
+                                          @Context Sse sse) {
+        if (!usuarioRepository.buscarPorId(usuarioId).isPresent()) {
+            throw new WebApplicationException(error(Response.Status.NOT_FOUND,
+                    "Usuario no encontrado con ID: " + usuarioId));
+        }
+        Long ultimoId = null;
+        if (ultimoEvento != null && !ultimoEvento.isBlank()) {
+            try {
+                ultimoId = Long.valueOf(ultimoEvento.trim());
+            } catch (NumberFormatException e) {
+                throw new WebApplicationException(error(Response.Status.BAD_REQUEST,
+                        "Last-Event-ID inválido: " + ultimoEvento));
+            }
+        }
+        if (!FeedEnVivo.getInstance().suscribir(usuarioId, ultimoId, sink, sse)) {
+            throw new WebApplicationException(Response.fromResponse(error(Response.Status.SERVICE_UNAVAILABLE,
+                    "Demasiadas conexiones al feed en vivo; reintentar más tarde"))
+                    .header(HttpHeaders.RETRY_AFTER, 30)
+                    .build());
         }
     }
 
+    private static Response error(Response.Status estado, String mensaje) {
+        return Response.status(estado)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(new ErrorResponse(mensaje))
+                .build();
+    }
+
     /**
      * POST /api/publicaciones
      * Crea una nueva publicación.
      */
     @POST
-    public Response crear(Publicacion publicacion) {
-        try {
-            if (publicacion == null) {
+    public void crear(Publicacion publicacion, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (publicacion == null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("La publicación no puede ser nula"))
+                            .build();
+                }
+
+                Publicacion publicacionCreada = publicacionRepository.crear(publicacion);
+                return Response.status(Response.Status.CREATED)
+                        .entity(publicacionCreada)
+                        .build();
+            } catch (IllegalArgumentException e) {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("La publicación no puede ser nula"))
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al crear publicación: " + e.getMessage()))
                         .build();
             }
+        });
+    }
 
-            Publicacion publicacionCreada = publicacionRepository.crear(publicacion);
-            return Response.status(Response.Status.CREATED)
-                    .entity(publicacionCreada)
-                    .build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(new ErrorResponse(e.getMessage()))
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al crear publicación: " + e.getMessage()))
-                    .build();
-        }
+    /**
+     * POST /api/publicaciones/batch
+     * Crea varias publicaciones en una sola petición.
+     * Responde 200 con un resultado por elemento, en el mismo orden (ver ResultadoLote).
+     */
+    @POST
+    @Path("/batch")
+    public void crearLote(List<Publicacion> publicaciones, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                ResultadoLote.validarTamaño(publicaciones);
+                return Response.ok(publicacionRepository.crearLote(publicaciones)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al crear publicaciones: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
@@ -132,28 +294,30 @@ public class PublicacionResource {
      */
     @PUT
     @Path("/{id}")
-    public Response actualizar(@PathParam("id") Long id, Publicacion publicacion) {
-        try {
-            if (publicacion == null) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("La publicación no puede ser nula"))
+    public void actualizar(@PathParam("id") Long id, Publicacion publicacion, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (publicacion == null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("La publicación no puede ser nula"))
+                            .build();
+                }
+
+                Publicacion publicacionActualizada = publicacionRepository.actualizar(id, publicacion);
+                return Response.ok(publicacionActualizada).build();
+            } catch (IllegalArgumentException e) {
+                Response.Status status = e.getMessage().contains("no encontrada") 
+                        ? Response.Status.NOT_FOUND 
+                        : Response.Status.BAD_REQUEST;
+                return Response.status(status)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al actualizar publicación: " + e.getMessage()))
                         .build();
             }
-
-            Publicacion publicacionActualizada = publicacionRepository.actualizar(id, publicacion);
-            return Response.ok(publicacionActualizada).build();
-        } catch (IllegalArgumentException e) {
-            Response.Status status = e.getMessage().contains("no encontrada") 
-                    ? Response.Status.NOT_FOUND 
-                    : Response.Status.BAD_REQUEST;
-            return Response.status(status)
-                    .entity(new ErrorResponse(e.getMessage()))
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al actualizar publicación: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
@@ -162,25 +326,28 @@ public class PublicacionResource {
      */
     @DELETE
     @Path("/{id}")
-    public Response eliminar(@PathParam("id") Long id) {
-        try {
-            // Eliminar también todos los comentarios de la publicación
-            ComentarioRepository comentarioRepo = ComentarioRepository.getInstance();
-            comentarioRepo.eliminarPorPublicacionId(id);
-
-            boolean eliminada = publicacionRepository.eliminar(id);
-            if (eliminada) {
-                return Response.ok(new MessageResponse("Publicación eliminada correctamente")).build();
-            } else {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("Publicación no encontrada con ID: " + id))
+    public void eliminar(@PathParam("id") Long id, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                // Eliminar también todos los comentarios de la publicación
+                ComentarioRepository comentarioRepo = ComentarioRepository.getInstance();
+                comentarioRepo.eliminarPorPublicacionId(id);
+
+                boolean eliminada = publicacionRepository.eliminar(id);
+                if (eliminada) {
+                    comentarioRepo.publicacionEliminada(id);
+                    return Response.ok(new MessageResponse("Publicación eliminada correctamente")).build();
+                } else {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("Publicación no encontrada con ID: " + id))
+                            .build();
+                }
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al eliminar publicación: " + e.getMessage()))
                         .build();
             }
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al eliminar publicación: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
@@ -189,19 +356,21 @@ public class PublicacionResource {
      */
     @POST
     @Path("/{id}/like")
-    public Response darLike(@PathParam("id") Long id) {
-        try {
-            Publicacion publicacion = publicacionRepository.darLike(id);
-            return Response.ok(publicacion).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity(new ErrorResponse(e.getMessage()))
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al dar like: " + e.getMessage()))
-                    .build();
-        }
+    public void darLike(@PathParam("id") Long id, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                Publicacion publicacion = publicacionRepository.darLike(id);
+                return Response.ok(publicacion).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al dar like: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
@@ -210,19 +379,21 @@ public class PublicacionResource {
      */
     @DELETE
     @Path("/{id}/like")
-    public Response quitarLike(@PathParam("id") Long id) {
-        try {
-            Publicacion publicacion = publicacionRepository.quitarLike(id);
-            return Response.ok(publicacion).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity(new ErrorResponse(e.getMessage()))
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al quitar like: " + e.getMessage()))
-                    .build();
-        }
+    public void quitarLike(@PathParam("id") Long id, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                Publicacion publicacion = publicacionRepository.quitarLike(id);
+                return Response.ok(publicacion).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al quitar like: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     public static class ErrorResponse {
@@ -0,0 +1,796 @@
+package com.example.rest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Registro de escrituras (write-ahead log) de los repositorios: cada alta, modificación y baja de
+ * usuarios, publicaciones, comentarios y amistades (y cada like) se agrega a un archivo que se
+ * reproduce al iniciar, así un reinicio no pierde datos. Se activa con "wal.directorio"; sin esa
+ * propiedad el servicio sigue siendo solo en memoria.
+ *
+ * Formato: la cabecera "WAL1" y luego registros [longitud int][CRC32C int][tipo byte][campos], con
+ * los números como varint y los textos como varint de longitud + UTF-8. Al recuperar, un registro
+ * incompleto o con CRC incorrecto al final (una escritura cortada) se descarta y el archivo se
+ * trunca ahí.
+ *
+ * Escritura con commit en grupo: los hilos copian su registro al buffer en curso (con un lock
+ * breve) y un único hilo escritor intercambia buffers, los escribe con un FileChannel y hace el
+ * fsync; todos los registros que llegaron mientras tanto comparten el siguiente fsync. La política
+ * ("wal.fsync") decide cuándo se sincroniza y si el repositorio espera antes de responder:
+ *
+ * - siempre (por defecto): fsync de cada lote; confirmar() espera a que su registro esté en disco.
+ * - intervalo: fsync cada "wal.fsync.intervalo.ms" (por defecto 100); no se espera, y una caída
+ *   puede perder a lo sumo ese intervalo.
+ * - nunca: se escribe al sistema operativo sin fsync; no se espera.
+ *
+ * Los repositorios anotan el registro antes de que el cambio sea visible (o dentro del compute que
+ * ya lo serializa), así el orden en el archivo respeta las dependencias entre escrituras, y
+ * llaman a confirmar() al final de la operación.
+ */
+public class RegistroEscrituras {
+    static final byte USUARIO_CREADO = 1;
+    static final byte USUARIO_ACTUALIZADO = 2;
+    static final byte USUARIO_ELIMINADO = 3;
+    static final byte PUBLICACION_CREADA = 4;
+    static final byte PUBLICACION_ACTUALIZADA = 5;
+    static final byte PUBLICACION_ELIMINADA = 6;
+    static final byte LIKES = 7;
+    static final byte COMENTARIO_CREADO = 8;
+    static final byte COMENTARIO_ACTUALIZADO = 9;
+    static final byte COMENTARIO_ELIMINADO = 10;
+    static final byte COMENTARIOS_DE_PUBLICACION_ELIMINADOS = 11;
+    static final byte AMISTAD_CREADA = 12;
+    static final byte AMISTAD_ELIMINADA = 13;
+
+    /**
+     * Campos de cada tipo de registro, en orden: N número no negativo (Long), E entero con signo
+     * (Integer) y T texto, todos con null. Codificar y decodificar leen esta misma tabla, así un
+     * campo no puede escribirse con una codificación y leerse con otra.
+     */
+    static final String[] FORMATOS = new String[AMISTAD_ELIMINADA + 1];
+
+    static {
+        FORMATOS[USUARIO_CREADO] = "NTTTETT"; // id, nombre, apellido, email, edad, teléfono, dirección
+        FORMATOS[USUARIO_ACTUALIZADO] = "NTTTETT";
+        FORMATOS[USUARIO_ELIMINADO] = "N";
+        FORMATOS[PUBLICACION_CREADA] = "NNTNE"; // id, usuarioId, contenido, fecha, likes
+        FORMATOS[PUBLICACION_ACTUALIZADA] = "NT"; // id, contenido
+        FORMATOS[PUBLICACION_ELIMINADA] = "N";
+        FORMATOS[LIKES] = "NE"; // publicacionId, cambio (+1 o -1)
+        FORMATOS[COMENTARIO_CREADO] = "NNNTN"; // id, publicacionId, usuarioId, contenido, fecha
+        FORMATOS[COMENTARIO_ACTUALIZADO] = "NT";
+        FORMATOS[COMENTARIO_ELIMINADO] = "N";
+        FORMATOS[COMENTARIOS_DE_PUBLICACION_ELIMINADOS] = "N"; // publicacionId
+        FORMATOS[AMISTAD_CREADA] = "NNNN"; // id, usuarioId1, usuarioId2, fecha
+        FORMATOS[AMISTAD_ELIMINADA] = "NN";
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegistroEscrituras.class);
+    private static final byte[] CABECERA = {'W', 'A', 'L', '1'};
+    static final int BYTES_MARCO = 8;
+    private static final String ARCHIVO = "escrituras.wal";
+
+    /**
+     * Cuándo se sincroniza el archivo con el disco (ver la descripción de la clase).
+     */
+    public enum Politica {
+        SIEMPRE, INTERVALO, NUNCA;
+
+        static Politica de(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Política de fsync desconocida: " + valor
+                        + " (valores posibles: siempre, intervalo, nunca)");
+            }
+        }
+    }
+
+    private static final RegistroEscrituras instance = desdePropiedades();
+
+    private final FileChannel canal;
+    private final Path archivo;
+    private final Politica politica;
+    private final long intervaloNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayDatos = lock.newCondition();
+    private final Condition hayEspacio = lock.newCondition();
+    private final Condition persistido = lock.newCondition();
+    private final Thread escritor;
+    private ByteBuffer enCurso;
+    private ByteBuffer enEscritura;
+    private long agregado;
+    private long durable;
+    private boolean cerrando;
+    private Throwable fallo;
+    private volatile boolean reproduciendo;
+    private boolean recuperado;
+
+    private final LongAdder registros = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder sincronizaciones = new LongAdder();
+
+    private RegistroEscrituras() {
+        this.canal = null;
+        this.archivo = null;
+        this.politica = Politica.NUNCA;
+        this.intervaloNanos = 0;
+        this.escritor = null;
+    }
+
+    private RegistroEscrituras(Path archivo, Politica politica, long intervaloMs, int bufferBytes) throws IOException {
+        this.archivo = archivo;
+        this.politica = politica;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervaloMs));
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (canal.size() == 0) {
+            canal.write(ByteBuffer.wrap(CABECERA));
+            canal.force(true);
+        }
+        canal.position(canal.size());
+        this.enCurso = ByteBuffer.allocate(bufferBytes);
+        this.enEscritura = ByteBuffer.allocate(bufferBytes);
+        this.escritor = new Thread(this::escribirLotes, "wal-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    private static RegistroEscrituras desdePropiedades() {
+        String directorio = System.getProperty("wal.directorio");
+        if (directorio == null || directorio.isBlank()) {
+            return new RegistroEscrituras();
+        }
+        try {
+            Path carpeta = Files.createDirectories(Path.of(directorio));
+            RegistroEscrituras registro = abrir(carpeta.resolve(ARCHIVO),
+                    Politica.de(System.getProperty("wal.fsync", "siempre")),
+                    Long.getLong("wal.fsync.intervalo.ms", 100L));
+            Runtime.getRuntime().addShutdownHook(new Thread(registro::cerrar, "wal-cierre"));
+            return registro;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el registro de escrituras en " + directorio, e);
+        }
+    }
+
+    public static RegistroEscrituras getInstance() {
+        return instance;
+    }
+
+    /**
+     * Abre (o crea) un registro en el archivo dado, sin reproducirlo. El servicio usa el de
+     * getInstance(); este sirve para medir cada política por separado.
+     */
+    public static RegistroEscrituras abrir(Path archivo, Politica politica, long intervaloMs) throws IOException {
+        return new RegistroEscrituras(archivo, politica, intervaloMs, Integer.getInteger("wal.buffer.kb", 1024) * 1024);
+    }
+
+    /**
+     * true si las escrituras se registran en disco.
+     */
+    public boolean isActivo() {
+        return canal != null;
+    }
+
+    // Anotación de escrituras. Cada método devuelve la posición del registro para confirmar().
+
+    long usuarioCreado(Usuario usuario) {
+        return usuario(USUARIO_CREADO, usuario);
+    }
+
+    long usuarioActualizado(Usuario usuario) {
+        return usuario(USUARIO_ACTUALIZADO, usuario);
+    }
+
+    private long usuario(byte tipo, Usuario usuario) {
+        if (!anotando()) {
+            return 0;
+        }
+        return anotar(tipo, usuario.getId(), usuario.getNombre(), usuario.getApellido(), usuario.getEmail(),
+                usuario.getEdad(), usuario.getTelefono(), usuario.getDireccion());
+    }
+
+    long usuarioEliminado(Long id) {
+        return anotando() ? anotar(USUARIO_ELIMINADO, id) : 0;
+    }
+
+    /**
+     * Anota el alta de una publicación (con su ID, fecha y likes iniciales ya asignados).
+     */
+    public long publicacionCreada(Publicacion publicacion) {
+        if (!anotando()) {
+            return 0;
+        }
+        return anotar(PUBLICACION_CREADA, publicacion.getId(), publicacion.getUsuarioId(), publicacion.getContenido(),
+                publicacion.getFechaCreacionMillis(), publicacion.getLikes());
+    }
+
+    long publicacionActualizada(Long id, String contenido) {
+        return anotando() ? anotar(PUBLICACION_ACTUALIZADA, id, contenido) : 0;
+    }
+
+    long publicacionEliminada(Long id) {
+        return anotando() ? anotar(PUBLICACION_ELIMINADA, id) : 0;
+    }
+
+    long likes(Long publicacionId, int cambio) {
+        return anotando() ? anotar(LIKES, publicacionId, cambio) : 0;
+    }
+
+    long comentarioCreado(Comentario comentario) {
+        if (!anotando()) {
+            return 0;
+        }
+        return anotar(COMENTARIO_CREADO, comentario.getId(), comentario.getPublicacionId(), comentario.getUsuarioId(),
+                comentario.getContenido(), comentario.getFechaCreacionMillis());
+    }
+
+    long comentarioActualizado(Long id, String contenido) {
+        return anotando() ? anotar(COMENTARIO_ACTUALIZADO, id, contenido) : 0;
+    }
+
+    long comentarioEliminado(Long id) {
+        return anotando() ? anotar(COMENTARIO_ELIMINADO, id) : 0;
+    }
+
+    long comentariosDePublicacionEliminados(Long publicacionId) {
+        return anotando() ? anotar(COMENTARIOS_DE_PUBLICACION_ELIMINADOS, publicacionId) : 0;
+    }
+
+    long amistadCreada(Amistad amistad) {
+        if (!anotando()) {
+            return 0;
+        }
+        return anotar(AMISTAD_CREADA, amistad.getId(), amistad.getUsuarioId1(), amistad.getUsuarioId2(),
+                amistad.getFechaAmistadMillis());
+    }
+
+    long amistadEliminada(Long usuarioId1, Long usuarioId2) {
+        return anotando() ? anotar(AMISTAD_ELIMINADA, usuarioId1, usuarioId2) : 0;
+    }
+
+    private boolean anotando() {
+        return canal != null && !reproduciendo;
+    }
+
+    private long anotar(byte tipo, Object... campos) {
+        byte[] registro = codificar(tipo, campos);
+        lock.lock();
+        try {
+            verificarFallo();
+            if (cerrando) {
+                throw new IllegalStateException("El registro de escrituras está cerrado");
+            }
+            // Si el buffer en curso no tiene lugar se espera a que el escritor lo tome
+            while (enCurso.remaining() < registro.length && enCurso.position() > 0 && fallo == null) {
+                hayEspacio.awaitUninterruptibly();
+            }
+            verificarFallo();
+            if (enCurso.remaining() < registro.length) {
+                enCurso = ByteBuffer.allocate(registro.length); // Un registro más grande que el buffer
+            }
+            boolean estabaVacio = enCurso.position() == 0;
+            enCurso.put(registro);
+            agregado += registro.length;
+            registros.increment();
+            bytes.add(registro.length);
+            if (estabaVacio) {
+                hayDatos.signal();
+            }
+            return agregado;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera, si la política es "siempre", a que el registro en esa posición esté en disco.
+     * @throws IllegalStateException si el archivo no se pudo escribir
+     */
+    public void confirmar(long posicion) {
+        if (posicion == 0 || politica != Politica.SIEMPRE) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durable < posicion && fallo == null) {
+                persistido.awaitUninterruptibly();
+            }
+            if (durable < posicion) {
+                verificarFallo();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void verificarFallo() {
+        if (fallo != null) {
+            throw new IllegalStateException("No se pudo escribir el registro de escrituras: " + fallo.getMessage(), fallo);
+        }
+    }
+
+    /**
+     * Hilo escritor: toma el buffer en curso entero (todos los registros acumulados), lo escribe
+     * y sincroniza según la política, y despierta a los que esperan en confirmar().
+     * Cualquier error (de E/S o no) lo deja como fallo: sin escritor nadie más va a persistir,
+     * así que anotar() y confirmar() tienen que dejar de esperar.
+     */
+    private void escribirLotes() {
+        try {
+            escribirHastaCerrar();
+        } catch (Throwable e) {
+            lock.lock();
+            try {
+                if (fallo == null) {
+                    fallo = e;
+                }
+                persistido.signalAll();
+                hayEspacio.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            LOGGER.error("El hilo escritor del registro de escrituras terminó por un error", e);
+        }
+    }
+
+    private void escribirHastaCerrar() throws IOException, InterruptedException {
+        long proximoFsync = System.nanoTime() + intervaloNanos;
+        boolean sinSincronizar = false;
+        while (true) {
+            ByteBuffer lote;
+            long hasta;
+            lock.lock();
+            try {
+                while (enCurso.position() == 0 && !cerrando) {
+                    if (sinSincronizar) {
+                        long espera = proximoFsync - System.nanoTime();
+                        if (espera <= 0) {
+                            break;
+                        }
+                        hayDatos.awaitNanos(espera);
+                    } else {
+                        hayDatos.awaitUninterruptibly();
+                    }
+                }
+                if (enCurso.position() == 0 && cerrando) {
+                    return;
+                }
+                lote = enCurso;
+                enCurso = enEscritura.capacity() >= lote.capacity() ? enEscritura : ByteBuffer.allocate(lote.capacity());
+                enEscritura = lote;
+                hasta = agregado;
+                hayEspacio.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            lote.flip();
+            if (lote.hasRemaining()) {
+                while (lote.hasRemaining()) {
+                    canal.write(lote);
+                }
+                lotes.increment();
+                sinSincronizar = true;
+            }
+            lote.clear();
+            if (politica == Politica.SIEMPRE
+                    || (politica == Politica.INTERVALO && sinSincronizar && System.nanoTime() >= proximoFsync)) {
+                canal.force(false);
+                sincronizaciones.increment();
+                sinSincronizar = false;
+                proximoFsync = System.nanoTime() + intervaloNanos;
+            } else if (politica == Politica.NUNCA) {
+                sinSincronizar = false;
+            }
+
+            lock.lock();
+            try {
+                durable = hasta;
+                persistido.signalAll();
+                hayEspacio.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Escribe lo pendiente, sincroniza y cierra el archivo. Las anotaciones posteriores fallan.
+     */
+    public void cerrar() {
+        if (canal == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            cerrando = true;
+            hayDatos.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            escritor.join();
+            if (canal.isOpen()) {
+                canal.force(true);
+                canal.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // El proceso termina de todos modos
+        }
+    }
+
+    /**
+     * Reproduce el archivo en los repositorios (una sola vez, al iniciar la aplicación) y deja los
+     * generadores de IDs después del mayor ID recuperado. Si el archivo está vacío se cargan los
+     * datos de ejemplo, que quedan registrados como cualquier alta.
+     */
+    public synchronized void recuperar() {
+        if (canal == null || recuperado) {
+            return;
+        }
+        recuperado = true;
+        long inicio = System.nanoTime();
+        long[] resultado;
+        reproduciendo = true;
+        try {
+            resultado = reproducir();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el registro de escrituras " + archivo, e);
+        } finally {
+            reproduciendo = false;
+        }
+        long aplicados = resultado[0];
+        long omitidos = resultado[1];
+        if (aplicados == 0 && omitidos == 0) {
+            UsuarioRepository.getInstance().inicializarDatosEjemplo();
+        }
+        LOGGER.info("Registro de escrituras {}: {} registros reproducidos ({} omitidos) en {} ms, fsync {}",
+                archivo, aplicados, omitidos, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio),
+                politica.name().toLowerCase(Locale.ROOT));
+    }
+
+    private long[] reproducir() throws IOException {
+        long aplicados = 0;
+        long omitidos = 0;
+        long valido = CABECERA.length;
+        canal.position(0);
+        // Sin cerrar el stream: cerrarlo cerraría el canal
+        InputStream lectura = new BufferedInputStream(Channels.newInputStream(canal), 1 << 16);
+        DataInputStream entrada = new DataInputStream(lectura);
+        byte[] cabecera = new byte[CABECERA.length];
+        entrada.readFully(cabecera);
+        if (!Arrays.equals(cabecera, CABECERA)) {
+            throw new IOException("No es un registro de escrituras: " + archivo);
+        }
+        CRC32C crc = new CRC32C();
+        byte[] registro = new byte[256];
+        while (true) {
+            int longitud;
+            int suma;
+            try {
+                longitud = entrada.readInt();
+                suma = entrada.readInt();
+                if (longitud <= 0 || longitud > canal.size()) {
+                    break;
+                }
+                if (registro.length < longitud) {
+                    registro = new byte[Math.max(longitud, registro.length * 2)];
+                }
+                entrada.readFully(registro, 0, longitud);
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(registro, 0, longitud);
+            if ((int) crc.getValue() != suma) {
+                break;
+            }
+            valido += BYTES_MARCO + longitud;
+            try {
+                aplicar(registro[0], decodificar(registro, longitud));
+                aplicados++;
+            } catch (RuntimeException e) {
+                // Por ejemplo, un like anotado en carrera con la baja de su publicación
+                omitidos++;
+            }
+        }
+        if (valido < canal.size()) {
+            LOGGER.warn("Registro de escrituras {}: se descartan {} bytes incompletos al final",
+                    archivo, canal.size() - valido);
+            canal.truncate(valido);
+        }
+        canal.position(valido);
+        return new long[]{aplicados, omitidos};
+    }
+
+    private static void aplicar(byte tipo, Object[] c) {
+        switch (tipo) {
+            case USUARIO_CREADO, USUARIO_ACTUALIZADO -> {
+                Usuario usuario = new Usuario((Long) c[0], (String) c[1], (String) c[2], (String) c[3], (Integer) c[4],
+                        (String) c[5], (String) c[6]);
+                if (tipo == USUARIO_CREADO) {
+                    UsuarioRepository.getInstance().restaurar(usuario);
+                } else {
+                    UsuarioRepository.getInstance().actualizar(usuario.getId(), usuario);
+                }
+            }
+            case USUARIO_ELIMINADO -> UsuarioRepository.getInstance().eliminar((Long) c[0]);
+            case PUBLICACION_CREADA -> {
+                Publicacion publicacion = new Publicacion((Long) c[0], (Long) c[1], (String) c[2], null, (Integer) c[4]);
+                publicacion.setFechaCreacionMillis((Long) c[3]);
+                PublicacionRepository.getInstance().restaurar(publicacion);
+            }
+            case PUBLICACION_ACTUALIZADA -> PublicacionRepository.getInstance().actualizar((Long) c[0],
+                    new Publicacion((Long) c[0], null, (String) c[1], null, null));
+            case PUBLICACION_ELIMINADA -> {
+                PublicacionRepository.getInstance().eliminar((Long) c[0]);
+                ComentarioRepository.getInstance().publicacionEliminada((Long) c[0]);
+            }
+            case LIKES -> {
+                if ((Integer) c[1] > 0) {
+                    PublicacionRepository.getInstance().darLike((Long) c[0]);
+                } else {
+                    PublicacionRepository.getInstance().quitarLike((Long) c[0]);
+                }
+            }
+            case COMENTARIO_CREADO -> {
+                Comentario comentario = new Comentario((Long) c[0], (Long) c[1], (Long) c[2], (String) c[3], null);
+                comentario.setFechaCreacionMillis((Long) c[4]);
+                ComentarioRepository.getInstance().restaurar(comentario);
+            }
+            case COMENTARIO_ACTUALIZADO -> ComentarioRepository.getInstance().actualizar((Long) c[0],
+                    new Comentario((Long) c[0], null, null, (String) c[1], null));
+            case COMENTARIO_ELIMINADO -> ComentarioRepository.getInstance().eliminar((Long) c[0]);
+            case COMENTARIOS_DE_PUBLICACION_ELIMINADOS -> ComentarioRepository.getInstance().eliminarPorPublicacionId((Long) c[0]);
+            case AMISTAD_CREADA -> {
+                Amistad amistad = new Amistad((Long) c[0], (Long) c[1], (Long) c[2], null);
+                amistad.setFechaAmistadMillis((Long) c[3]);
+                AmistadRepository.getInstance().restaurar(amistad);
+            }
+            case AMISTAD_ELIMINADA -> AmistadRepository.getInstance().eliminarAmistad((Long) c[0], (Long) c[1]);
+            default -> throw new IllegalStateException("Tipo de registro desconocido: " + tipo);
+        }
+    }
+
+    /**
+     * Codifica un registro completo (marco incluido) según FORMATOS. Un campo de otro tipo que el
+     * de la tabla falla al anotar, no al recuperar.
+     */
+    static byte[] codificar(byte tipo, Object... campos) {
+        String formato = FORMATOS[tipo];
+        if (campos.length != formato.length()) {
+            throw new IllegalArgumentException("El registro " + tipo + " lleva " + formato.length() + " campos");
+        }
+        Codificador codificador = new Codificador(tipo);
+        for (int i = 0; i < campos.length; i++) {
+            switch (formato.charAt(i)) {
+                case 'N' -> codificador.numero((Long) campos[i]);
+                case 'E' -> codificador.entero((Integer) campos[i]);
+                default -> codificador.texto((String) campos[i]);
+            }
+        }
+        return codificador.terminar();
+    }
+
+    /**
+     * Decodifica los campos de un registro (sin el marco; el primer byte es el tipo) según FORMATOS.
+     */
+    static Object[] decodificar(byte[] registro, int longitud) {
+        Decodificador decodificador = new Decodificador(registro, longitud);
+        byte tipo = decodificador.tipo();
+        if (tipo <= 0 || tipo >= FORMATOS.length) {
+            throw new IllegalStateException("Tipo de registro desconocido: " + tipo);
+        }
+        String formato = FORMATOS[tipo];
+        Object[] campos = new Object[formato.length()];
+        for (int i = 0; i < campos.length; i++) {
+            switch (formato.charAt(i)) {
+                case 'N' -> campos[i] = decodificador.numero();
+                case 'E' -> campos[i] = decodificador.entero();
+                default -> campos[i] = decodificador.texto();
+            }
+        }
+        if (!decodificador.completo()) {
+            throw new IllegalStateException("El registro " + tipo + " tiene bytes de más");
+        }
+        return campos;
+    }
+
+    /**
+     * Métricas actuales del registro.
+     */
+    public Metricas metricas() {
+        return new Metricas(isActivo(), registros.sum(), bytes.sum(), lotes.sum(), sincronizaciones.sum());
+    }
+
+    /**
+     * Arma un registro: deja lugar para el marco (longitud y CRC) y lo completa al terminar.
+     */
+    private static final class Codificador {
+        private byte[] datos = new byte[64];
+        private int tamaño = BYTES_MARCO;
+
+        Codificador(byte tipo) {
+            datos[tamaño++] = tipo;
+        }
+
+        /**
+         * Número no negativo (o null) como varint; 0 es null y el valor se guarda + 1.
+         */
+        Codificador numero(Long valor) {
+            return varint(valor == null ? 0 : valor + 1);
+        }
+
+        /**
+         * Entero con signo (o null) como varint zigzag; 0 es null.
+         */
+        Codificador entero(Integer valor) {
+            return varint(valor == null ? 0 : (((valor << 1) ^ (valor >> 31)) & 0xFFFFFFFFL) + 1);
+        }
+
+        Codificador texto(String valor) {
+            if (valor == null) {
+                return varint(0);
+            }
+            byte[] utf8 = valor.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length + 1L);
+            asegurar(utf8.length);
+            System.arraycopy(utf8, 0, datos, tamaño, utf8.length);
+            tamaño += utf8.length;
+            return this;
+        }
+
+        private Codificador varint(long valor) {
+            asegurar(10);
+            while ((valor & ~0x7FL) != 0) {
+                datos[tamaño++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            datos[tamaño++] = (byte) valor;
+            return this;
+        }
+
+        private void asegurar(int adicionales) {
+            if (tamaño + adicionales > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, tamaño + adicionales));
+            }
+        }
+
+        byte[] terminar() {
+            int longitud = tamaño - BYTES_MARCO;
+            CRC32C crc = new CRC32C();
+            crc.update(datos, BYTES_MARCO, longitud);
+            ByteBuffer.wrap(datos, 0, BYTES_MARCO).putInt(longitud).putInt((int) crc.getValue());
+            return tamaño == datos.length ? datos : Arrays.copyOf(datos, tamaño);
+        }
+    }
+
+    /**
+     * Lee los campos de un registro en el mismo orden en que los escribió el Codificador.
+     */
+    private static final class Decodificador {
+        private final byte[] datos;
+        private final int fin;
+        private int posicion;
+
+        Decodificador(byte[] datos, int longitud) {
+            this.datos = datos;
+            this.fin = longitud;
+        }
+
+        byte tipo() {
+            return datos[posicion++];
+        }
+
+        Long numero() {
+            long valor = varint();
+            return valor == 0 ? null : valor - 1;
+        }
+
+        Integer entero() {
+            long valor = varint();
+            if (valor == 0) {
+                return null;
+            }
+            int zigzag = (int) (valor - 1);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        String texto() {
+            long longitud = varint();
+            if (longitud == 0) {
+                return null;
+            }
+            if (longitud - 1 > fin - posicion) {
+                throw new IllegalStateException("Registro truncado");
+            }
+            int bytes = (int) (longitud - 1);
+            String valor = new String(datos, posicion, bytes, StandardCharsets.UTF_8);
+            posicion += bytes;
+            return valor;
+        }
+
+        boolean completo() {
+            return posicion == fin;
+        }
+
+        private long varint() {
+            long valor = 0;
+            for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+                if (posicion >= fin) {
+                    throw new IllegalStateException("Registro truncado");
+                }
+                byte b = datos[posicion++];
+                valor |= (long) (b & 0x7F) << desplazamiento;
+                if ((b & 0x80) == 0) {
+                    return valor;
+                }
+            }
+            throw new IllegalStateException("Varint inválido");
+        }
+    }
+
+    /**
+     * Métricas expuestas en /api/metrics.
+     */
+    public static class Metricas {
+        private final boolean activo;
+        private final long registros;
+        private final long bytes;
+        private final long lotes;
+        private final long sincronizaciones;
+
+        Metricas(boolean activo, long registros, long bytes, long lotes, long sincronizaciones) {
+            this.activo = activo;
+            this.registros = registros;
+            this.bytes = bytes;
+            this.lotes = lotes;
+            this.sincronizaciones = sincronizaciones;
+        }
+
+        public boolean isActivo() {
+            return activo;
+        }
+
+        public long getRegistros() {
+            return registros;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getLotes() {
+            return lotes;
+        }
+
+        public long getSincronizaciones() {
+            return sincronizaciones;
+        }
+    }
+}
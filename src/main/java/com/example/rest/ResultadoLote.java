@@ -0,0 +1,63 @@
+package com.example.rest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Resultado de un elemento de una operación por lotes (POST .../batch).
+ * indice es la posición del elemento en el arreglo recibido; estado es el código HTTP
+ * que habría devuelto la operación individual (201 si se creó, 400 si no).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoLote<T> {
+    public static final int TAMAÑO_MAXIMO = 5000;
+
+    private final int indice;
+    private final int estado;
+    private final T elemento;
+    private final String error;
+
+    private ResultadoLote(int indice, int estado, T elemento, String error) {
+        this.indice = indice;
+        this.estado = estado;
+        this.elemento = elemento;
+        this.error = error;
+    }
+
+    public static <T> ResultadoLote<T> creado(int indice, T elemento) {
+        return new ResultadoLote<>(indice, 201, elemento, null);
+    }
+
+    public static <T> ResultadoLote<T> error(int indice, String error) {
+        return new ResultadoLote<>(indice, 400, null, error);
+    }
+
+    /**
+     * Valida el tamaño de un lote recibido.
+     */
+    public static void validarTamaño(List<?> lote) {
+        if (lote == null || lote.isEmpty()) {
+            throw new IllegalArgumentException("El lote no puede estar vacío");
+        }
+        if (lote.size() > TAMAÑO_MAXIMO) {
+            throw new IllegalArgumentException("El lote no puede tener más de " + TAMAÑO_MAXIMO + " elementos");
+        }
+    }
+
+    public int getIndice() {
+        return indice;
+    }
+
+    public int getEstado() {
+        return estado;
+    }
+
+    public T getElemento() {
+        return elemento;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
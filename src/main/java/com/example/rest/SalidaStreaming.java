@@ -0,0 +1,122 @@
+package com.example.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+
+/**
+ * Serializa colecciones completas directamente al stream de salida, elemento por elemento,
+ * sin armar la lista ni el documento en memoria.
+ *
+ * - Arreglo: igual al que produciría serializar la lista completa, en JSON o en el formato
+ *   binario negociado (ver FormatosBinarios); lo escribe EscritorArreglo.
+ * - NDJSON (application/x-ndjson): un objeto JSON por línea; también es un Arreglo, escrito por el
+ *   mismo EscritorArreglo según el tipo que declara el recurso.
+ *
+ * Si el cliente se desconecta, la escritura falla con IOException y el recorrido se corta ahí.
+ * Usa el ObjectMapper compartido (MapeadorJson), que no cierra el stream al terminar.
+ */
+public final class SalidaStreaming {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    // Sin flush por elemento: el generador escribe al stream cuando se llena su buffer
+    private static final ObjectWriter WRITER = MapeadorJson.escritor(Object.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private static final ObjectWriter WRITER_CBOR = FormatosBinarios.CBOR.writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private static final ObjectWriter WRITER_SMILE = FormatosBinarios.SMILE.writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private SalidaStreaming() {
+    }
+
+    /**
+     * Arreglo con los elementos del iterador, en el formato que se negocie con el cliente.
+     */
+    public static Arreglo arreglo(Iterator<?> elementos) {
+        return new Arreglo(elementos);
+    }
+
+    /**
+     * NDJSON: cada elemento del iterador en su propia línea (el recurso declara APPLICATION_NDJSON).
+     */
+    public static Arreglo ndjson(Iterator<?> elementos) {
+        return new Arreglo(elementos);
+    }
+
+    /**
+     * Colección a transmitir como arreglo (o como NDJSON); se recorre una sola vez, al escribir la respuesta.
+     */
+    public static final class Arreglo {
+        private final Iterator<?> elementos;
+
+        private Arreglo(Iterator<?> elementos) {
+            this.elementos = elementos;
+        }
+    }
+
+    /**
+     * Escribe los elementos con el writer dado: como arreglo con el generador del formato del mapper
+     * (JSON, CBOR o Smile), o uno por línea si el tipo es NDJSON. ProyeccionCampos lo usa con un
+     * writer que lleva la máscara de ?fields=.
+     */
+    static void escribir(Arreglo arreglo, MediaType mediaType, ObjectMapper mapper, ObjectWriter writer,
+                         OutputStream salida) throws IOException {
+        Iterator<?> elementos = arreglo.elementos;
+        try (JsonGenerator generador = mapper.getFactory().createGenerator(salida)) {
+            if (esNdjson(mediaType)) {
+                // El separador entre valores es el salto de línea, sin el espacio por defecto
+                generador.setRootValueSeparator(null);
+                while (elementos.hasNext()) {
+                    writer.writeValue(generador, elementos.next());
+                    generador.writeRaw('\n');
+                }
+                return;
+            }
+            generador.writeStartArray();
+            while (elementos.hasNext()) {
+                writer.writeValue(generador, elementos.next());
+            }
+            generador.writeEndArray();
+        }
+    }
+
+    static boolean esNdjson(MediaType mediaType) {
+        return "application".equals(mediaType.getType()) && "x-ndjson".equals(mediaType.getSubtype());
+    }
+
+    /**
+     * Escribe un Arreglo en el formato negociado: JSON, CBOR, Smile o NDJSON.
+     */
+    @Provider
+    @Produces({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE,
+            APPLICATION_NDJSON})
+    public static class EscritorArreglo implements MessageBodyWriter<Arreglo> {
+        @Override
+        public boolean isWriteable(Class<?> tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType mediaType) {
+            return tipo == Arreglo.class;
+        }
+
+        @Override
+        public void writeTo(Arreglo arreglo, Class<?> tipo, Type tipoGenerico, Annotation[] anotaciones,
+                            MediaType mediaType, MultivaluedMap<String, Object> encabezados,
+                            OutputStream salida) throws IOException {
+            ObjectMapper mapper = FormatosBinarios.mapper(mediaType);
+            ObjectWriter writer = mapper == FormatosBinarios.CBOR ? WRITER_CBOR
+                    : mapper == FormatosBinarios.SMILE ? WRITER_SMILE : WRITER;
+            escribir(arreglo, mediaType, mapper, writer, salida);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializadores y deserializadores escritos a mano para las entidades.
+ *
+ * Jackson, sin ayuda, recorre cada clase por reflexión (getters, setters, anotaciones) y
+ * escribe cada propiedad a través de un accesor genérico. Estos escriben y leen los campos
+ * directamente con el JsonGenerator/JsonParser, con los mismos nombres, el mismo orden y los
+ * mismos null que producía la introspección, así que el JSON de la API no cambia.
+ * Cada propiedad se escribe solo si su bit está en la máscara de Campos (?fields=); el índice
+ * de cada una es su posición en la Campos.Entidad correspondiente.
+ *
+ * Al leer se conserva el comportamiento por defecto de Jackson: los números aceptan texto
+ * ("30"), los textos aceptan escalares, las propiedades ignoradas (version, ...Millis) se
+ * descartan y una propiedad desconocida es un error 400.
+ */
+public final class SerializacionEntidades {
+
+    private SerializacionEntidades() {
+    }
+
+    /**
+     * Módulo con todos los serializadores y deserializadores de entidades.
+     */
+    public static SimpleModule modulo() {
+        SimpleModule modulo = new SimpleModule("entidades");
+        modulo.addSerializer(Usuario.class, new UsuarioSerializer());
+        modulo.addDeserializer(Usuario.class, new UsuarioDeserializer());
+        modulo.addSerializer(Publicacion.class, new PublicacionSerializer());
+        modulo.addDeserializer(Publicacion.class, new PublicacionDeserializer());
+        modulo.addSerializer(Comentario.class, new ComentarioSerializer());
+        modulo.addDeserializer(Comentario.class, new ComentarioDeserializer());
+        modulo.addSerializer(Amistad.class, new AmistadSerializer());
+        modulo.addDeserializer(Amistad.class, new AmistadDeserializer());
+        modulo.addSerializer(UsuarioResumen.class, new UsuarioResumenSerializer());
+        return modulo;
+    }
+
+    static final class UsuarioSerializer extends StdSerializer<Usuario> {
+        private static final long serialVersionUID = 1L;
+
+        UsuarioSerializer() {
+            super(Usuario.class);
+        }
+
+        @Override
+        public void serialize(Usuario usuario, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int campos = Campos.mascara(provider, Campos.USUARIO);
+            gen.writeStartObject(usuario);
+            if (Campos.incluye(campos, 0)) {
+                escribirLong(gen, "id", usuario.getId());
+            }
+            if (Campos.incluye(campos, 1)) {
+                gen.writeStringField("nombre", usuario.getNombre());
+            }
+            if (Campos.incluye(campos, 2)) {
+                gen.writeStringField("apellido", usuario.getApellido());
+            }
+            if (Campos.incluye(campos, 3)) {
+                gen.writeStringField("email", usuario.getEmail());
+            }
+            if (Campos.incluye(campos, 4)) {
+                escribirInteger(gen, "edad", usuario.getEdad());
+            }
+            if (Campos.incluye(campos, 5)) {
+                gen.writeStringField("telefono", usuario.getTelefono());
+            }
+            if (Campos.incluye(campos, 6)) {
+                gen.writeStringField("direccion", usuario.getDireccion());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static final class UsuarioDeserializer extends StdDeserializer<Usuario> {
+        private static final long serialVersionUID = 1L;
+
+        UsuarioDeserializer() {
+            super(Usuario.class);
+        }
+
+        @Override
+        public Usuario deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Usuario usuario = new Usuario();
+            for (String campo = iniciarObjeto(p, ctxt, Usuario.class); campo != null; campo = p.nextFieldName()) {
+                p.nextToken();
+                switch (campo) {
+                    case "id" -> usuario.setId(leerLong(p, ctxt));
+                    case "nombre" -> usuario.setNombre(leerTexto(p, ctxt));
+                    case "apellido" -> usuario.setApellido(leerTexto(p, ctxt));
+                    case "email" -> usuario.setEmail(leerTexto(p, ctxt));
+                    case "edad" -> usuario.setEdad(leerInteger(p, ctxt));
+                    case "telefono" -> usuario.setTelefono(leerTexto(p, ctxt));
+                    case "direccion" -> usuario.setDireccion(leerTexto(p, ctxt));
+                    case "version" -> p.skipChildren();
+                    default -> ctxt.handleUnknownProperty(p, this, Usuario.class, campo);
+                }
+            }
+            return usuario;
+        }
+    }
+
+    static final class PublicacionSerializer extends StdSerializer<Publicacion> {
+        private static final long serialVersionUID = 1L;
+
+        PublicacionSerializer() {
+            super(Publicacion.class);
+        }
+
+        @Override
+        public void serialize(Publicacion publicacion, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int campos = Campos.mascara(provider, Campos.PUBLICACION);
+            gen.writeStartObject(publicacion);
+            if (Campos.incluye(campos, 0)) {
+                escribirLong(gen, "id", publicacion.getId());
+            }
+            if (Campos.incluye(campos, 1)) {
+                escribirLong(gen, "usuarioId", publicacion.getUsuarioId());
+            }
+            if (Campos.incluye(campos, 2)) {
+                gen.writeStringField("contenido", publicacion.getContenido());
+            }
+            if (Campos.incluye(campos, 3)) {
+                gen.writeStringField("fechaCreacion", publicacion.getFechaCreacion());
+            }
+            if (Campos.incluye(campos, 4)) {
+                escribirInteger(gen, "likes", publicacion.getLikes());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static final class PublicacionDeserializer extends StdDeserializer<Publicacion> {
+        private static final long serialVersionUID = 1L;
+
+        PublicacionDeserializer() {
+            super(Publicacion.class);
+        }
+
+        @Override
+        public Publicacion deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Publicacion publicacion = new Publicacion();
+            for (String campo = iniciarObjeto(p, ctxt, Publicacion.class); campo != null; campo = p.nextFieldName()) {
+                p.nextToken();
+                switch (campo) {
+                    case "id" -> publicacion.setId(leerLong(p, ctxt));
+                    case "usuarioId" -> publicacion.setUsuarioId(leerLong(p, ctxt));
+                    case "contenido" -> publicacion.setContenido(leerTexto(p, ctxt));
+                    case "fechaCreacion" -> publicacion.setFechaCreacion(leerTexto(p, ctxt));
+                    case "likes" -> publicacion.setLikes(leerInteger(p, ctxt));
+                    case "fechaCreacionMillis", "version" -> p.skipChildren();
+                    default -> ctxt.handleUnknownProperty(p, this, Publicacion.class, campo);
+                }
+            }
+            return publicacion;
+        }
+    }
+
+    static final class ComentarioSerializer extends StdSerializer<Comentario> {
+        private static final long serialVersionUID = 1L;
+
+        ComentarioSerializer() {
+            super(Comentario.class);
+        }
+
+        @Override
+        public void serialize(Comentario comentario, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int campos = Campos.mascara(provider, Campos.COMENTARIO);
+            gen.writeStartObject(comentario);
+            if (Campos.incluye(campos, 0)) {
+                escribirLong(gen, "id", comentario.getId());
+            }
+            if (Campos.incluye(campos, 1)) {
+                escribirLong(gen, "publicacionId", comentario.getPublicacionId());
+            }
+            if (Campos.incluye(campos, 2)) {
+                escribirLong(gen, "usuarioId", comentario.getUsuarioId());
+            }
+            if (Campos.incluye(campos, 3)) {
+                gen.writeStringField("contenido", comentario.getContenido());
+            }
+            if (Campos.incluye(campos, 4)) {
+                gen.writeStringField("fechaCreacion", comentario.getFechaCreacion());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static final class ComentarioDeserializer extends StdDeserializer<Comentario> {
+        private static final long serialVersionUID = 1L;
+
+        ComentarioDeserializer() {
+            super(Comentario.class);
+        }
+
+        @Override
+        public Comentario deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Comentario comentario = new Comentario();
+            for (String campo = iniciarObjeto(p, ctxt, Comentario.class); campo != null; campo = p.nextFieldName()) {
+                p.nextToken();
+                switch (campo) {
+                    case "id" -> comentario.setId(leerLong(p, ctxt));
+                    case "publicacionId" -> comentario.setPublicacionId(leerLong(p, ctxt));
+                    case "usuarioId" -> comentario.setUsuarioId(leerLong(p, ctxt));
+                    case "contenido" -> comentario.setContenido(leerTexto(p, ctxt));
+                    case "fechaCreacion" -> comentario.setFechaCreacion(leerTexto(p, ctxt));
+                    case "fechaCreacionMillis", "version" -> p.skipChildren();
+                    default -> ctxt.handleUnknownProperty(p, this, Comentario.class, campo);
+                }
+            }
+            return comentario;
+        }
+    }
+
+    static final class AmistadSerializer extends StdSerializer<Amistad> {
+        private static final long serialVersionUID = 1L;
+
+        AmistadSerializer() {
+            super(Amistad.class);
+        }
+
+        @Override
+        public void serialize(Amistad amistad, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int campos = Campos.mascara(provider, Campos.AMISTAD);
+            gen.writeStartObject(amistad);
+            if (Campos.incluye(campos, 0)) {
+                escribirLong(gen, "id", amistad.getId());
+            }
+            if (Campos.incluye(campos, 1)) {
+                escribirLong(gen, "usuarioId1", amistad.getUsuarioId1());
+            }
+            if (Campos.incluye(campos, 2)) {
+                escribirLong(gen, "usuarioId2", amistad.getUsuarioId2());
+            }
+            if (Campos.incluye(campos, 3)) {
+                gen.writeStringField("fechaAmistad", amistad.getFechaAmistad());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static final class AmistadDeserializer extends StdDeserializer<Amistad> {
+        private static final long serialVersionUID = 1L;
+
+        AmistadDeserializer() {
+            super(Amistad.class);
+        }
+
+        @Override
+        public Amistad deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Amistad amistad = new Amistad();
+            for (String campo = iniciarObjeto(p, ctxt, Amistad.class); campo != null; campo = p.nextFieldName()) {
+                p.nextToken();
+                switch (campo) {
+                    case "id" -> amistad.setId(leerLong(p, ctxt));
+                    case "usuarioId1" -> amistad.setUsuarioId1(leerLong(p, ctxt));
+                    case "usuarioId2" -> amistad.setUsuarioId2(leerLong(p, ctxt));
+                    case "fechaAmistad" -> amistad.setFechaAmistad(leerTexto(p, ctxt));
+                    case "fechaAmistadMillis" -> p.skipChildren();
+                    default -> ctxt.handleUnknownProperty(p, this, Amistad.class, campo);
+                }
+            }
+            return amistad;
+        }
+    }
+
+    static final class UsuarioResumenSerializer extends StdSerializer<UsuarioResumen> {
+        private static final long serialVersionUID = 1L;
+
+        UsuarioResumenSerializer() {
+            super(UsuarioResumen.class);
+        }
+
+        @Override
+        public void serialize(UsuarioResumen resumen, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int campos = Campos.mascara(provider, Campos.USUARIO_RESUMEN);
+            gen.writeStartObject(resumen);
+            if (Campos.incluye(campos, 0)) {
+                escribirLong(gen, "id", resumen.getId());
+            }
+            if (Campos.incluye(campos, 1)) {
+                gen.writeStringField("nombre", resumen.getNombre());
+            }
+            if (Campos.incluye(campos, 2)) {
+                gen.writeStringField("apellido", resumen.getApellido());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    private static void escribirLong(JsonGenerator gen, String campo, Long valor) throws IOException {
+        gen.writeFieldName(campo);
+        if (valor == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(valor);
+        }
+    }
+
+    private static void escribirInteger(JsonGenerator gen, String campo, Integer valor) throws IOException {
+        gen.writeFieldName(campo);
+        if (valor == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(valor);
+        }
+    }
+
+    /**
+     * Verifica que el valor actual sea un objeto y devuelve el nombre del primer campo,
+     * o null si el objeto está vacío.
+     */
+    private static String iniciarObjeto(JsonParser p, DeserializationContext ctxt, Class<?> tipo) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            return p.nextFieldName();
+        }
+        if (token == JsonToken.FIELD_NAME) {
+            // Jackson puede entregar el objeto ya abierto (por ejemplo, con tipos polimórficos)
+            return p.currentName();
+        }
+        if (token == JsonToken.END_OBJECT) {
+            return null;
+        }
+        return (String) ctxt.handleUnexpectedToken(tipo, p);
+    }
+
+    private static String leerTexto(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return p.getText();
+        }
+        return (String) ctxt.handleUnexpectedToken(String.class, p);
+    }
+
+    private static Long leerLong(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return p.getValueAsLong();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String texto = p.getText().trim();
+            try {
+                return texto.isEmpty() ? null : Long.valueOf(texto);
+            } catch (NumberFormatException e) {
+                return (Long) ctxt.handleWeirdStringValue(Long.class, texto, "no es un número válido");
+            }
+        }
+        return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+    }
+
+    private static Integer leerInteger(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return p.getValueAsInt();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String texto = p.getText().trim();
+            try {
+                return texto.isEmpty() ? null : Integer.valueOf(texto);
+            } catch (NumberFormatException e) {
+                return (Integer) ctxt.handleWeirdStringValue(Integer.class, texto, "no es un número válido");
+            }
+        }
+        return (Integer) ctxt.handleUnexpectedToken(Integer.class, p);
+    }
+}
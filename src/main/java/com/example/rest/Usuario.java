@@ -1,5 +1,7 @@
 package com.example.rest;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Objects;
 
 /**
@@ -13,6 +15,7 @@ public class Usuario {
     private Integer edad;
     private String telefono;
     private String direccion;
+    private long version; // Asignada por el repositorio; no forma parte del JSON
 
     public Usuario() {
     }
@@ -83,6 +86,18 @@ public class Usuario {
         this.direccion = direccion;
     }
 
+    /**
+     * Versión asignada por el repositorio en cada escritura (ver Condicional).
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,22 +1,43 @@
 package com.example.rest;
 
+import com.example.estructuras.IndiceTrigramas;
+
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 /**
  * Repositorio en memoria para gestionar usuarios.
  * Utiliza ConcurrentHashMap para thread-safety.
+ * El índice idsPorEmail (email normalizado -> ID) garantiza la unicidad del email:
+ * la reserva se hace con putIfAbsent, sin bloqueo global.
+ * El índice de trigramas sobre nombre y apellido resuelve las búsquedas por nombre.
+ * idsOrdenados mantiene los IDs en orden ascendente para la paginación por cursor.
+ * Cada alta o modificación asigna al usuario una versión nueva del reloj del repositorio (ETag).
+ * Las escrituras se anotan en el RegistroEscrituras antes de hacerse visibles.
  */
 public class UsuarioRepository {
+    public static final int LIMITE_BUSQUEDA_POR_DEFECTO = 50;
+    public static final int LIMITE_BUSQUEDA_MAXIMO = 200;
+
     private static final UsuarioRepository instance = new UsuarioRepository();
-    private final Map<Long, Usuario> usuarios = new ConcurrentHashMap<>();
+    private final MetricasServicio.Operaciones operaciones = MetricasServicio.getInstance().repositorio("usuarios");
+    private final ConcurrentHashMap<Long, Usuario> usuarios = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> idsPorEmail = new ConcurrentHashMap<>();
+    private final IndiceTrigramas indiceNombres = new IndiceTrigramas();
+    private final ConcurrentSkipListSet<Long> idsOrdenados = new ConcurrentSkipListSet<>();
     private final AtomicLong idGenerator = new AtomicLong(1);
+    private final AtomicLong reloj = new AtomicLong();
+    private final RegistroEscrituras wal = RegistroEscrituras.getInstance();
 
     private UsuarioRepository() {
-        // Inicializar con algunos datos de ejemplo
-        inicializarDatosEjemplo();
+        // Inicializar con algunos datos de ejemplo; con registro de escrituras
+        // solo si el registro está vacío (ver RegistroEscrituras.recuperar)
+        if (!wal.isActivo()) {
+            inicializarDatosEjemplo();
+        }
     }
 
     public static UsuarioRepository getInstance() {
@@ -26,7 +47,7 @@ public class UsuarioRepository {
     /**
      * Inicializa algunos datos de ejemplo.
      */
-    private void inicializarDatosEjemplo() {
+    void inicializarDatosEjemplo() {
         crear(new Usuario(null, "Juan", "Pérez", "juan.perez@example.com", 30, "+1234567890", "Calle Principal 123"));
         crear(new Usuario(null, "María", "González", "maria.gonzalez@example.com", 25, "+0987654321", "Avenida Central 456"));
         crear(new Usuario(null, "Carlos", "Rodríguez", "carlos.rodriguez@example.com", 35, "+1122334455", "Plaza Mayor 789"));
@@ -36,61 +57,193 @@ public class UsuarioRepository {
      * Obtiene todos los usuarios.
      */
     public List<Usuario> obtenerTodos() {
+        operaciones.contar("obtenerTodos");
         return new ArrayList<>(usuarios.values());
     }
 
+    /**
+     * Obtiene una página de usuarios ordenados por ID.
+     * @param despuesDeId ID del último usuario de la página anterior, o null
+     * @param limite Tamaño de página
+     */
+    public Pagina<Usuario> obtenerPagina(Long despuesDeId, int limite) {
+        operaciones.contar("obtenerPagina");
+        return Pagina.desde(idsOrdenados, despuesDeId, limite, usuarios::get);
+    }
+
     /**
      * Busca un usuario por ID.
      */
     public Optional<Usuario> buscarPorId(Long id) {
+        operaciones.contar("buscarPorId");
         return Optional.ofNullable(usuarios.get(id));
     }
 
     /**
-     * Busca usuarios por nombre (búsqueda parcial, case-insensitive).
+     * Obtiene varios usuarios por ID en una sola llamada, en el orden recibido.
+     * Los IDs que no existen se omiten.
+     */
+    public List<Usuario> buscarPorIds(Collection<Long> ids) {
+        return buscarPorIds(ids, Function.identity());
+    }
+
+    /**
+     * Obtiene varios usuarios por ID aplicando una proyección a cada uno, sin armar
+     * la lista intermedia de usuarios completos.
+     */
+    public <T> List<T> buscarPorIds(Collection<Long> ids, Function<Usuario, T> proyeccion) {
+        operaciones.contar("buscarPorIds");
+        List<T> resultado = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Usuario usuario = id != null ? usuarios.get(id) : null;
+            if (usuario != null) {
+                resultado.add(proyeccion.apply(usuario));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca usuarios por nombre o apellido (búsqueda parcial, sin distinguir
+     * mayúsculas ni acentos). Devuelve como máximo LIMITE_BUSQUEDA_POR_DEFECTO usuarios.
      */
     public List<Usuario> buscarPorNombre(String nombre) {
         if (nombre == null || nombre.trim().isEmpty()) {
             return obtenerTodos();
         }
-        String nombreLower = nombre.toLowerCase();
-        return usuarios.values().stream()
-                .filter(u -> u.getNombre() != null && u.getNombre().toLowerCase().contains(nombreLower))
-                .collect(Collectors.toList());
+        return buscarPorNombre(nombre, null, LIMITE_BUSQUEDA_POR_DEFECTO).getElementos();
+    }
+
+    /**
+     * Busca usuarios por nombre o apellido usando el índice de trigramas.
+     * Los resultados se ordenan por ID; despuesDeId permite pedir la página siguiente.
+     * El límite se acota a LIMITE_BUSQUEDA_MAXIMO.
+     */
+    public Pagina<Usuario> buscarPorNombre(String nombre, Long despuesDeId, int limite) {
+        operaciones.contar("buscarPorNombre");
+        int limiteEfectivo = Math.min(limite, LIMITE_BUSQUEDA_MAXIMO);
+        // Se pide un ID de más para saber si existe una página siguiente
+        NavigableSet<Long> ids = new TreeSet<>(indiceNombres.buscar(nombre, despuesDeId, limiteEfectivo + 1));
+        return Pagina.desde(ids, null, limiteEfectivo, usuarios::get);
     }
 
     /**
      * Busca usuarios por email.
      */
     public Optional<Usuario> buscarPorEmail(String email) {
-        return usuarios.values().stream()
-                .filter(u -> u.getEmail() != null && u.getEmail().equalsIgnoreCase(email))
-                .findFirst();
+        operaciones.contar("buscarPorEmail");
+        String clave = normalizarEmail(email);
+        if (clave == null) {
+            return Optional.empty();
+        }
+        Long id = idsPorEmail.get(clave);
+        return id == null ? Optional.empty() : Optional.ofNullable(usuarios.get(id));
     }
 
     /**
      * Crea un nuevo usuario y le asigna un ID.
      */
     public Usuario crear(Usuario usuario) {
+        operaciones.contar("crear");
         if (usuario == null) {
             throw new IllegalArgumentException("El usuario no puede ser nulo");
         }
-        
-        // Verificar si el email ya existe
-        if (usuario.getEmail() != null && buscarPorEmail(usuario.getEmail()).isPresent()) {
+
+        Long nuevoId = idGenerator.getAndIncrement();
+
+        // Reservar el email de forma atómica: si ya existe, falla sin tocar usuarios
+        String email = normalizarEmail(usuario.getEmail());
+        if (email != null && idsPorEmail.putIfAbsent(email, nuevoId) != null) {
             throw new IllegalArgumentException("Ya existe un usuario con el email: " + usuario.getEmail());
         }
 
-        Long nuevoId = idGenerator.getAndIncrement();
-        usuario.setId(nuevoId);
-        usuarios.put(nuevoId, usuario);
+        wal.confirmar(insertar(usuario, nuevoId));
         return usuario;
     }
 
+    /**
+     * Crea varios usuarios en una sola operación. Cada elemento se valida por separado
+     * (nombre y email obligatorios, email único en el lote y en el repositorio) y recibe
+     * su propio resultado; los válidos se insertan con IDs reservados en un solo bloque.
+     */
+    public List<ResultadoLote<Usuario>> crearLote(List<Usuario> lote) {
+        operaciones.contar("crearLote");
+        // Primera pasada: validación, sin tocar el repositorio
+        String[] errores = new String[lote.size()];
+        Set<String> emailsDelLote = new HashSet<>();
+        int validos = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            Usuario usuario = lote.get(i);
+            if (usuario == null) {
+                errores[i] = "El usuario no puede ser nulo";
+            } else if (usuario.getNombre() == null || usuario.getNombre().trim().isEmpty()) {
+                errores[i] = "El nombre es obligatorio";
+            } else if (normalizarEmail(usuario.getEmail()) == null) {
+                errores[i] = "El email es obligatorio";
+            } else if (!emailsDelLote.add(normalizarEmail(usuario.getEmail()))) {
+                errores[i] = "Email repetido en el lote: " + usuario.getEmail();
+            } else if (idsPorEmail.containsKey(normalizarEmail(usuario.getEmail()))) {
+                errores[i] = "Ya existe un usuario con el email: " + usuario.getEmail();
+            } else {
+                validos++;
+            }
+        }
+
+        // Segunda pasada: IDs en bloque e inserción
+        long siguienteId = idGenerator.getAndAdd(validos);
+        long posicion = 0;
+        List<ResultadoLote<Usuario>> resultados = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            if (errores[i] != null) {
+                resultados.add(ResultadoLote.error(i, errores[i]));
+                continue;
+            }
+            Usuario usuario = lote.get(i);
+            Long nuevoId = siguienteId++;
+            // Otra alta concurrente pudo tomar el email después de la validación
+            if (idsPorEmail.putIfAbsent(normalizarEmail(usuario.getEmail()), nuevoId) != null) {
+                resultados.add(ResultadoLote.error(i, "Ya existe un usuario con el email: " + usuario.getEmail()));
+                continue;
+            }
+            posicion = insertar(usuario, nuevoId);
+            resultados.add(ResultadoLote.creado(i, usuario));
+        }
+        wal.confirmar(posicion); // Confirmar el último registro confirma todo el lote
+        return resultados;
+    }
+
+    /**
+     * Usuario recuperado del RegistroEscrituras: conserva su ID y deja el generador de IDs
+     * después de él.
+     */
+    void restaurar(Usuario usuario) {
+        idGenerator.accumulateAndGet(usuario.getId() + 1, Math::max);
+        String email = normalizarEmail(usuario.getEmail());
+        if (email != null) {
+            idsPorEmail.put(email, usuario.getId());
+        }
+        insertar(usuario, usuario.getId());
+    }
+
+    /**
+     * Inserta un usuario con su email ya reservado y devuelve la posición de su registro
+     * para RegistroEscrituras.confirmar.
+     */
+    private long insertar(Usuario usuario, Long id) {
+        usuario.setId(id);
+        long posicion = wal.usuarioCreado(usuario);
+        usuario.setVersion(reloj.incrementAndGet());
+        usuarios.put(id, usuario);
+        idsOrdenados.add(id);
+        indiceNombres.indexar(id, textoBuscable(usuario));
+        return posicion;
+    }
+
     /**
      * Actualiza un usuario existente.
      */
     public Usuario actualizar(Long id, Usuario usuarioActualizado) {
+        operaciones.contar("actualizar");
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
         }
@@ -98,40 +251,89 @@ public class UsuarioRepository {
             throw new IllegalArgumentException("El usuario no puede ser nulo");
         }
 
-        Usuario usuarioExistente = usuarios.get(id);
-        if (usuarioExistente == null) {
-            throw new IllegalArgumentException("Usuario no encontrado con ID: " + id);
-        }
+        // computeIfPresent serializa las actualizaciones del mismo usuario,
+        // así el cambio de email y el reemplazo del usuario ocurren juntos
+        long[] posicion = new long[1];
+        Usuario resultado = usuarios.computeIfPresent(id, (clave, usuarioExistente) -> {
+            String emailAnterior = normalizarEmail(usuarioExistente.getEmail());
+            String emailNuevo = normalizarEmail(usuarioActualizado.getEmail());
 
-        // Verificar si el email está siendo cambiado y si ya existe
-        if (usuarioActualizado.getEmail() != null && 
-            !usuarioActualizado.getEmail().equalsIgnoreCase(usuarioExistente.getEmail())) {
-            if (buscarPorEmail(usuarioActualizado.getEmail()).isPresent()) {
-                throw new IllegalArgumentException("Ya existe un usuario con el email: " + usuarioActualizado.getEmail());
+            // Verificar si el email está siendo cambiado y si ya existe
+            if (emailNuevo != null && !emailNuevo.equals(emailAnterior)) {
+                Long propietario = idsPorEmail.putIfAbsent(emailNuevo, id);
+                if (propietario != null && !propietario.equals(id)) {
+                    throw new IllegalArgumentException("Ya existe un usuario con el email: " + usuarioActualizado.getEmail());
+                }
+            }
+            if (emailAnterior != null && !emailAnterior.equals(emailNuevo)) {
+                idsPorEmail.remove(emailAnterior, id);
             }
-        }
 
-        // Actualizar campos
-        usuarioActualizado.setId(id);
-        usuarios.put(id, usuarioActualizado);
-        return usuarioActualizado;
+            // Actualizar campos
+            usuarioActualizado.setId(id);
+            posicion[0] = wal.usuarioActualizado(usuarioActualizado);
+            usuarioActualizado.setVersion(reloj.incrementAndGet());
+            indiceNombres.indexar(id, textoBuscable(usuarioActualizado));
+            return usuarioActualizado;
+        });
+
+        if (resultado == null) {
+            throw new IllegalArgumentException("Usuario no encontrado con ID: " + id);
+        }
+        wal.confirmar(posicion[0]);
+        return resultado;
     }
 
     /**
      * Elimina un usuario por ID.
      */
     public boolean eliminar(Long id) {
+        operaciones.contar("eliminar");
         if (id == null) {
             return false;
         }
-        return usuarios.remove(id) != null;
+        boolean[] eliminado = new boolean[1];
+        long[] posicion = new long[1];
+        usuarios.computeIfPresent(id, (clave, usuario) -> {
+            posicion[0] = wal.usuarioEliminado(id);
+            String email = normalizarEmail(usuario.getEmail());
+            if (email != null) {
+                idsPorEmail.remove(email, id);
+            }
+            indiceNombres.eliminar(id);
+            idsOrdenados.remove(id);
+            eliminado[0] = true;
+            return null;
+        });
+        wal.confirmar(posicion[0]);
+        return eliminado[0];
     }
 
     /**
      * Obtiene el número total de usuarios.
      */
     public int contar() {
+        operaciones.contar("contar");
         return usuarios.size();
     }
+
+    /**
+     * Texto indexado para la búsqueda por nombre: nombre y apellido.
+     */
+    private static String textoBuscable(Usuario usuario) {
+        String nombre = usuario.getNombre() != null ? usuario.getNombre() : "";
+        String apellido = usuario.getApellido() != null ? usuario.getApellido() : "";
+        return nombre + " " + apellido;
+    }
+
+    /**
+     * Normaliza un email para el índice: sin espacios y en minúsculas.
+     */
+    private static String normalizarEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
 }
 
@@ -1,8 +1,13 @@
 package com.example.rest;
 
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -10,8 +15,9 @@ import java.util.List;
  * Proporciona todas las operaciones CRUD (Create, Read, Update, Delete).
  */
 @Path("/usuarios")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, FormatosBinarios.APPLICATION_CBOR, FormatosBinarios.APPLICATION_SMILE})
+@LimiteEscrituras
 public class UsuarioResource {
 
     private final UsuarioRepository repository = UsuarioRepository.getInstance();
@@ -21,43 +27,91 @@ public class UsuarioResource {
      * Obtiene todos los usuarios.
      * 
      * Query params opcionales:
-     * - nombre: filtra usuarios por nombre (búsqueda parcial)
+     * - nombre: filtra usuarios por nombre o apellido (búsqueda parcial, ignora acentos;
+     *   siempre paginada, como máximo 200 resultados por página)
+     * - email: busca el usuario con ese email (sin distinguir mayúsculas)
+     * - ids: lista de IDs separados por coma (como máximo 500); devuelve esos usuarios en ese orden
+     * - limit, cursor: paginación por cursor (ver Paginacion)
      */
     @GET
-    public Response obtenerTodos(@QueryParam("nombre") String nombre) {
-        try {
-            List<Usuario> usuarios;
-            if (nombre != null && !nombre.trim().isEmpty()) {
-                usuarios = repository.buscarPorNombre(nombre);
-            } else {
-                usuarios = repository.obtenerTodos();
+    @DevuelveEntidad(Usuario.class)
+    public void obtenerTodos(@QueryParam("ids") String ids,
+                             @QueryParam("nombre") String nombre,
+                             @QueryParam("email") String email,
+                             @QueryParam("limit") Integer limit,
+                             @QueryParam("cursor") String cursor,
+                             @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (ids != null && !ids.trim().isEmpty()) {
+                    return Response.ok(repository.buscarPorIds(parsearIds(ids))).build();
+                }
+                if (email != null && !email.trim().isEmpty()) {
+                    List<Usuario> usuarios = new ArrayList<>();
+                    repository.buscarPorEmail(email).ifPresent(usuarios::add);
+                    return Response.ok(usuarios).build();
+                }
+                if (nombre != null && !nombre.trim().isEmpty()) {
+                    int limite = limit != null ? Paginacion.limite(limit) : UsuarioRepository.LIMITE_BUSQUEDA_POR_DEFECTO;
+                    return Paginacion.ok(repository.buscarPorNombre(nombre, Paginacion.decodificar(cursor), limite)).build();
+                }
+                if (Paginacion.solicitada(limit, cursor)) {
+                    return Paginacion.ok(repository.obtenerPagina(Paginacion.decodificar(cursor), Paginacion.limite(limit))).build();
+                }
+                return Response.ok(repository.obtenerTodos()).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener usuarios: " + e.getMessage()))
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Convierte "1,2,3" en una lista de IDs.
+     */
+    private static List<Long> parsearIds(String ids) {
+        String[] partes = ids.split(",");
+        if (partes.length > Paginacion.LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("No se pueden pedir más de " + Paginacion.LIMITE_MAXIMO + " IDs");
+        }
+        List<Long> resultado = new ArrayList<>(partes.length);
+        for (String parte : partes) {
+            try {
+                resultado.add(Long.parseLong(parte.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("ID inválido: " + parte.trim());
             }
-            return Response.ok(usuarios).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener usuarios: " + e.getMessage()))
-                    .build();
         }
+        return resultado;
     }
 
     /**
      * GET /api/usuarios/{id}
      * Obtiene un usuario por ID.
+     * Responde con ETag; si coincide con If-None-Match devuelve 304 sin cuerpo.
      */
     @GET
     @Path("/{id}")
-    public Response obtenerPorId(@PathParam("id") Long id) {
-        try {
-            return repository.buscarPorId(id)
-                    .map(usuario -> Response.ok(usuario).build())
-                    .orElse(Response.status(Response.Status.NOT_FOUND)
-                            .entity(new ErrorResponse("Usuario no encontrado con ID: " + id))
-                            .build());
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al obtener usuario: " + e.getMessage()))
-                    .build();
-        }
+    @DevuelveEntidad(Usuario.class)
+    public void obtenerPorId(@PathParam("id") Long id, @Context Request request, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                return repository.buscarPorId(id)
+                        .map(usuario -> Condicional.ok(request, Condicional.etiqueta(request, usuario.getVersion()), usuario).build())
+                        .orElse(Response.status(Response.Status.NOT_FOUND)
+                                .entity(new ErrorResponse("Usuario no encontrado con ID: " + id))
+                                .build());
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al obtener usuario: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
@@ -65,40 +119,66 @@ public class UsuarioResource {
      * Crea un nuevo usuario.
      */
     @POST
-    public Response crear(Usuario usuario) {
-        try {
-            if (usuario == null) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("El usuario no puede ser nulo"))
-                        .build();
-            }
+    public void crear(Usuario usuario, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (usuario == null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("El usuario no puede ser nulo"))
+                            .build();
+                }
+
+                // Validaciones básicas
+                if (usuario.getNombre() == null || usuario.getNombre().trim().isEmpty()) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("El nombre es obligatorio"))
+                            .build();
+                }
 
-            // Validaciones básicas
-            if (usuario.getNombre() == null || usuario.getNombre().trim().isEmpty()) {
+                if (usuario.getEmail() == null || usuario.getEmail().trim().isEmpty()) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("El email es obligatorio"))
+                            .build();
+                }
+
+                Usuario usuarioCreado = repository.crear(usuario);
+                return Response.status(Response.Status.CREATED)
+                        .entity(usuarioCreado)
+                        .build();
+            } catch (IllegalArgumentException e) {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("El nombre es obligatorio"))
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al crear usuario: " + e.getMessage()))
                         .build();
             }
+        });
+    }
 
-            if (usuario.getEmail() == null || usuario.getEmail().trim().isEmpty()) {
+    /**
+     * POST /api/usuarios/batch
+     * Crea varios usuarios en una sola petición (mismas validaciones que POST /api/usuarios).
+     * Responde 200 con un resultado por elemento, en el mismo orden (ver ResultadoLote).
+     */
+    @POST
+    @Path("/batch")
+    public void crearLote(List<Usuario> usuarios, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                ResultadoLote.validarTamaño(usuarios);
+                return Response.ok(repository.crearLote(usuarios)).build();
+            } catch (IllegalArgumentException e) {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("El email es obligatorio"))
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al crear usuarios: " + e.getMessage()))
                         .build();
             }
-
-            Usuario usuarioCreado = repository.crear(usuario);
-            return Response.status(Response.Status.CREATED)
-                    .entity(usuarioCreado)
-                    .build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(new ErrorResponse(e.getMessage()))
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al crear usuario: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
@@ -107,41 +187,43 @@ public class UsuarioResource {
      */
     @PUT
     @Path("/{id}")
-    public Response actualizar(@PathParam("id") Long id, Usuario usuario) {
-        try {
-            if (usuario == null) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("El usuario no puede ser nulo"))
-                        .build();
-            }
+    public void actualizar(@PathParam("id") Long id, Usuario usuario, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                if (usuario == null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("El usuario no puede ser nulo"))
+                            .build();
+                }
 
-            // Validaciones básicas
-            if (usuario.getNombre() == null || usuario.getNombre().trim().isEmpty()) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("El nombre es obligatorio"))
-                        .build();
-            }
+                // Validaciones básicas
+                if (usuario.getNombre() == null || usuario.getNombre().trim().isEmpty()) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("El nombre es obligatorio"))
+                            .build();
+                }
 
-            if (usuario.getEmail() == null || usuario.getEmail().trim().isEmpty()) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("El email es obligatorio"))
+                if (usuario.getEmail() == null || usuario.getEmail().trim().isEmpty()) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("El email es obligatorio"))
+                            .build();
+                }
+
+                Usuario usuarioActualizado = repository.actualizar(id, usuario);
+                return Response.ok(usuarioActualizado).build();
+            } catch (IllegalArgumentException e) {
+                Response.Status status = e.getMessage().contains("no encontrado") 
+                        ? Response.Status.NOT_FOUND 
+                        : Response.Status.BAD_REQUEST;
+                return Response.status(status)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al actualizar usuario: " + e.getMessage()))
                         .build();
             }
-
-            Usuario usuarioActualizado = repository.actualizar(id, usuario);
-            return Response.ok(usuarioActualizado).build();
-        } catch (IllegalArgumentException e) {
-            Response.Status status = e.getMessage().contains("no encontrado") 
-                    ? Response.Status.NOT_FOUND 
-                    : Response.Status.BAD_REQUEST;
-            return Response.status(status)
-                    .entity(new ErrorResponse(e.getMessage()))
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al actualizar usuario: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
@@ -150,21 +232,23 @@ public class UsuarioResource {
      */
     @DELETE
     @Path("/{id}")
-    public Response eliminar(@PathParam("id") Long id) {
-        try {
-            boolean eliminado = repository.eliminar(id);
-            if (eliminado) {
-                return Response.ok(new MessageResponse("Usuario eliminado correctamente")).build();
-            } else {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("Usuario no encontrado con ID: " + id))
+    public void eliminar(@PathParam("id") Long id, @Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                boolean eliminado = repository.eliminar(id);
+                if (eliminado) {
+                    return Response.ok(new MessageResponse("Usuario eliminado correctamente")).build();
+                } else {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("Usuario no encontrado con ID: " + id))
+                            .build();
+                }
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al eliminar usuario: " + e.getMessage()))
                         .build();
             }
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al eliminar usuario: " + e.getMessage()))
-                    .build();
-        }
+        });
     }
 
     /**
@@ -173,15 +257,17 @@ public class UsuarioResource {
      */
     @GET
     @Path("/contar")
-    public Response contar() {
-        try {
-            int total = repository.contar();
-            return Response.ok(new CountResponse(total)).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Error al contar usuarios: " + e.getMessage()))
-                    .build();
-        }
+    public void contar(@Suspended AsyncResponse async) {
+        EjecutorAsync.ejecutar(async, () -> {
+            try {
+                int total = repository.contar();
+                return Response.ok(new CountResponse(total)).build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Error al contar usuarios: " + e.getMessage()))
+                        .build();
+            }
+        });
     }
 
     /**
@@ -0,0 +1,33 @@
+package com.example.rest;
+
+/**
+ * Proyección compacta de un usuario (id, nombre y apellido) para listas largas,
+ * como la lista de amigos.
+ */
+public class UsuarioResumen {
+    private final Long id;
+    private final String nombre;
+    private final String apellido;
+
+    public UsuarioResumen(Long id, String nombre, String apellido) {
+        this.id = id;
+        this.nombre = nombre;
+        this.apellido = apellido;
+    }
+
+    public static UsuarioResumen de(Usuario usuario) {
+        return new UsuarioResumen(usuario.getId(), usuario.getNombre(), usuario.getApellido());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getApellido() {
+        return apellido;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.rest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato de los registros del RegistroEscrituras: cada tipo se lee igual que se escribe.
+ */
+class RegistroEscriturasTest {
+
+    /**
+     * Ida y vuelta de cada tipo de registro con valores límite (null, 0, negativos, extremos,
+     * texto no ASCII), pasando por el marco (longitud y CRC) y el decodificador.
+     */
+    @Test
+    void cadaTipoDeRegistroSeLeeComoSeEscribio() {
+        Long[] numeros = {0L, 1L, 5L, Long.MAX_VALUE - 1, null};
+        Integer[] enteros = {5, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, null};
+        String[] textos = {"Ñandú 😀", "", null, "x".repeat(300)};
+        for (byte tipo = 1; tipo < RegistroEscrituras.FORMATOS.length; tipo++) {
+            String formato = RegistroEscrituras.FORMATOS[tipo];
+            for (int variante = 0; variante < enteros.length; variante++) {
+                Object[] campos = new Object[formato.length()];
+                for (int i = 0; i < campos.length; i++) {
+                    int indice = variante + i;
+                    switch (formato.charAt(i)) {
+                        case 'N' -> campos[i] = numeros[indice % numeros.length];
+                        case 'E' -> campos[i] = enteros[indice % enteros.length];
+                        default -> campos[i] = textos[indice % textos.length];
+                    }
+                }
+                byte[] registro = RegistroEscrituras.codificar(tipo, campos);
+                ByteBuffer marco = ByteBuffer.wrap(registro);
+                int longitud = marco.getInt();
+                int suma = marco.getInt();
+                byte[] cuerpo = Arrays.copyOfRange(registro, RegistroEscrituras.BYTES_MARCO, registro.length);
+                CRC32C crc = new CRC32C();
+                crc.update(cuerpo);
+
+                String descripcion = "registro " + tipo + " " + Arrays.toString(campos);
+                Assertions.assertEquals(cuerpo.length, longitud, descripcion);
+                Assertions.assertEquals((int) crc.getValue(), suma, descripcion);
+                Assertions.assertEquals(tipo, cuerpo[0], descripcion);
+                Assertions.assertArrayEquals(campos, RegistroEscrituras.decodificar(cuerpo, longitud), descripcion);
+            }
+        }
+    }
+
+    @Test
+    void unTipoDesconocidoNoSeDecodifica() {
+        byte[] cuerpo = {(byte) RegistroEscrituras.FORMATOS.length};
+        Assertions.assertThrows(IllegalStateException.class, () -> RegistroEscrituras.decodificar(cuerpo, cuerpo.length));
+    }
+}